@@ -3,14 +3,19 @@ package ru.practicum.shareit.booking;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -27,22 +32,40 @@ public class BookingClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> getAllForBooker(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<StreamingResponseBody> exportBookings(long userId) {
+        return getStream("/export", userId, MediaType.APPLICATION_NDJSON);
     }
 
-    public ResponseEntity<Object> getAllForOwner(long ownerId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getAllForBooker(long userId, BookingState state, Integer from, Integer size,
+                                                  String after) {
+        return getPage("", userId, state, from, size, after);
+    }
+
+    public ResponseEntity<Object> getAllForOwner(long ownerId, BookingState state, Integer from, Integer size,
+                                                 String after) {
+        return getPage("/owner", ownerId, state, from, size, after);
+    }
+
+    public ResponseEntity<Object> countForBooker(long userId) {
+        return get("/counts", userId);
+    }
+
+    public ResponseEntity<Object> countForOwner(long ownerId) {
+        return get("/owner/counts", ownerId);
+    }
+
+    private ResponseEntity<Object> getPage(String path, long userId, BookingState state, Integer from, Integer size,
+                                           String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", ownerId, parameters);
+        ));
+        if (after == null) {
+            return get(path + "?state={state}&from={from}&size={size}", userId, parameters);
+        }
+        parameters.put("after", after);
+        return get(path + "?state={state}&from={from}&size={size}&after={after}", userId, parameters);
     }
 
     public ResponseEntity<Object> save(long userId, BookItemRequestDto requestDto) {
@@ -59,4 +82,8 @@ public class BookingClient extends BaseClient {
         );
         return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
     }
+
+    public ResponseEntity<Object> approveAll(long userId, List<BookingDecisionDto> decisions) {
+        return patch("/batch", userId, decisions);
+    }
 }
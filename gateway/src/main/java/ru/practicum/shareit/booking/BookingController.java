@@ -2,17 +2,23 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exception.ValidationException;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -21,6 +27,7 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class BookingController {
     private final BookingClient bookingClient;
+    private final BookingEventClient bookingEventClient;
 
     @PostMapping
     public ResponseEntity<Object> saveBooking(@RequestHeader("X-Sharer-User-Id") long userId,
@@ -29,6 +36,14 @@ public class BookingController {
         return bookingClient.save(userId, requestDto);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> approveAll(@RequestHeader("X-Sharer-User-Id") long userId,
+                                             @RequestBody @NotEmpty @Size(max = 100)
+                                             List<@Valid BookingDecisionDto> decisions) {
+        log.info("Batch booking approval of {} bookings, userId={}", decisions.size(), userId);
+        return bookingClient.approveAll(userId, decisions);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<Object> approve(@PathVariable long bookingId, @RequestParam Boolean approved,
                                           @RequestHeader("X-Sharer-User-Id") long userId) {
@@ -42,11 +57,13 @@ public class BookingController {
                                                   @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
                                                   Integer from,
                                                   @Positive @RequestParam(name = "size", defaultValue = "10")
-                                                  Integer size) {
+                                                  Integer size,
+                                                  @RequestParam(name = "after", required = false) String after) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new ValidationException("Unknown state: " + stateParam));
-        log.info("Get booking for booker with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getAllForBooker(userId, state, from, size);
+        log.info("Get booking for booker with state {}, userId={}, from={}, size={}, after={}",
+                stateParam, userId, from, size, after);
+        return bookingClient.getAllForBooker(userId, state, from, size, after);
     }
 
     @GetMapping("/owner")
@@ -55,11 +72,37 @@ public class BookingController {
                                                  @PositiveOrZero @RequestParam(name = "from", defaultValue = "0")
                                                  Integer from,
                                                  @Positive @RequestParam(name = "size", defaultValue = "10")
-                                                 Integer size) {
+                                                 Integer size,
+                                                 @RequestParam(name = "after", required = false) String after) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new ValidationException("Unknown state: " + stateParam));
-        log.info("Get booking for owner with state {}, userId={}, from={}, size={}", stateParam, ownerId, from, size);
-        return bookingClient.getAllForOwner(ownerId, state, from, size);
+        log.info("Get booking for owner with state {}, userId={}, from={}, size={}, after={}",
+                stateParam, ownerId, from, size, after);
+        return bookingClient.getAllForOwner(ownerId, state, from, size, after);
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> events(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Subscribing to booking events, userId={}", userId);
+        return bookingEventClient.streamEvents(userId);
+    }
+
+    @GetMapping("/counts")
+    public ResponseEntity<Object> countForBooker(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Get booking counts for booker, userId={}", userId);
+        return bookingClient.countForBooker(userId);
+    }
+
+    @GetMapping("/owner/counts")
+    public ResponseEntity<Object> countForOwner(@RequestHeader("X-Sharer-User-Id") long ownerId) {
+        log.info("Get booking counts for owner, userId={}", ownerId);
+        return bookingClient.countForOwner(ownerId);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Exporting bookings, userId={}", userId);
+        return bookingClient.exportBookings(userId);
     }
 
     @GetMapping("/{bookingId}")
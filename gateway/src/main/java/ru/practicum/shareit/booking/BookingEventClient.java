@@ -0,0 +1,63 @@
+package ru.practicum.shareit.booking;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import ru.practicum.shareit.client.BaseClient;
+
+import java.time.Duration;
+
+/**
+ * Потоки событий держат соединение с сервером часами, поэтому у них свой пул: открытые подписки
+ * не занимают соединения BookingClient. Когда пул исчерпан, новая подписка ждёт соединение
+ * не дольше {@code connection-request-timeout} и получает ошибку.
+ */
+@Service
+public class BookingEventClient extends BaseClient {
+    private static final String API_PREFIX = "/bookings";
+
+    @Autowired
+    public BookingEventClient(@Value("${shareit-server.url}") String serverUrl,
+                              @Value("${shareit-server.events.max-connections:200}") int maxConnections,
+                              @Value("${shareit-server.events.connect-timeout:5s}") Duration connectTimeout,
+                              @Value("${shareit-server.events.connection-request-timeout:2s}")
+                              Duration connectionRequestTimeout,
+                              RestTemplateBuilder builder) {
+        super(
+                builder
+                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .requestFactory(() -> requestFactory(maxConnections, connectTimeout,
+                                connectionRequestTimeout))
+                        .build()
+        );
+    }
+
+    public ResponseEntity<StreamingResponseBody> streamEvents(long userId) {
+        return getEventStream("/events", userId);
+    }
+
+    private static HttpComponentsClientHttpRequestFactory requestFactory(int maxConnections,
+                                                                         Duration connectTimeout,
+                                                                         Duration connectionRequestTimeout) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) connectionRequestTimeout.toMillis())
+                .setSocketTimeout(0)
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build());
+    }
+}
@@ -1,10 +1,18 @@
 package ru.practicum.shareit.client;
 
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -78,6 +86,80 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    protected ResponseEntity<StreamingResponseBody> getStream(String path, long userId, MediaType accept) {
+        return stream(path, userId, accept, false);
+    }
+
+    /**
+     * Пересылает поток событий сервера, сбрасывая буфер после каждого прочитанного фрагмента.
+     */
+    protected ResponseEntity<StreamingResponseBody> getEventStream(String path, long userId) {
+        return stream(path, userId, MediaType.TEXT_EVENT_STREAM, true);
+    }
+
+    protected ResponseEntity<Object> postStream(String path, long userId, MediaType contentType, InputStream body) {
+        ResponseEntity<Object> shareitServerResponse;
+        try {
+            shareitServerResponse = rest.execute(path, HttpMethod.POST, request -> {
+                request.getHeaders().putAll(defaultHeaders(userId));
+                request.getHeaders().setContentType(contentType);
+                StreamUtils.copy(body, request.getBody());
+            }, rest.responseEntityExtractor(Object.class));
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        }
+        return prepareGatewayResponse(shareitServerResponse);
+    }
+
+    /**
+     * Запрос к серверу выполняется до ответа клиенту, поэтому ошибка сервера уходит клиенту со своим
+     * статусом и телом, а не пустым потоком со статусом 200. Соединение с сервером закрывается,
+     * когда поток дочитан или клиент отключился.
+     */
+    private ResponseEntity<StreamingResponseBody> stream(String path, long userId, MediaType accept,
+                                                         boolean flushEachRead) {
+        URI uri = rest.getUriTemplateHandler().expand(path);
+        ClientHttpResponse response = null;
+        try {
+            ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            request.getHeaders().putAll(defaultHeaders(userId));
+            request.getHeaders().setAccept(List.of(accept, MediaType.APPLICATION_JSON));
+            response = request.execute();
+            if (HttpStatus.Series.resolve(response.getRawStatusCode()) != HttpStatus.Series.SUCCESSFUL) {
+                byte[] error = StreamUtils.copyToByteArray(response.getBody());
+                ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getRawStatusCode());
+                MediaType contentType = response.getHeaders().getContentType();
+                if (contentType != null) {
+                    responseBuilder.contentType(contentType);
+                }
+                response.close();
+                return responseBuilder.body(target -> target.write(error));
+            }
+            ClientHttpResponse upstream = response;
+            return ResponseEntity.status(upstream.getRawStatusCode())
+                    .contentType(accept)
+                    .body(target -> {
+                        try (InputStream body = upstream.getBody()) {
+                            byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+                            int read;
+                            while ((read = body.read(buffer)) != -1) {
+                                target.write(buffer, 0, read);
+                                if (flushEachRead) {
+                                    target.flush();
+                                }
+                            }
+                        } finally {
+                            upstream.close();
+                        }
+                    });
+        } catch (IOException e) {
+            if (response != null) {
+                response.close();
+            }
+            throw new ResourceAccessException("I/O error on GET request for \"" + uri + "\": " + e.getMessage(), e);
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId,
                                                           @Nullable Map<String, Object> parameters,
                                                           @Nullable T body) {
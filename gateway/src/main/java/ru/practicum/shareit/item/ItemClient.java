@@ -3,14 +3,20 @@ package ru.practicum.shareit.item;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDtoInput;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -22,7 +28,12 @@ public class ItemClient extends BaseClient {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .requestFactory(() -> {
+                            HttpComponentsClientHttpRequestFactory requestFactory =
+                                    new HttpComponentsClientHttpRequestFactory();
+                            requestFactory.setBufferRequestBody(false);
+                            return requestFactory;
+                        })
                         .build()
         );
     }
@@ -31,6 +42,18 @@ public class ItemClient extends BaseClient {
         return post("", userId, body);
     }
 
+    public ResponseEntity<Object> importItems(long userId, List<ItemDto> items) {
+        return post("/batch", userId, items);
+    }
+
+    public ResponseEntity<Object> importItemsStream(long userId, InputStream items) {
+        return postStream("/batch", userId, MediaType.APPLICATION_NDJSON, items);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportItems(long userId) {
+        return getStream("/export", userId, MediaType.APPLICATION_NDJSON);
+    }
+
     public ResponseEntity<Object> update(ItemDto itemDto, long id, long userId) {
         return patch("/" + id, userId, itemDto);
     }
@@ -39,12 +62,20 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId, ownerId);
     }
 
-    public ResponseEntity<Object> getAll(long userId, int from, int size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getRequestMatches(long itemId, long userId) {
+        return get("/" + itemId + "/request-matches", userId);
+    }
+
+    public ResponseEntity<Object> getAll(long userId, int from, int size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("?from={from}&size={size}", userId, parameters);
+        ));
+        if (after == null) {
+            return get("?from={from}&size={size}", userId, parameters);
+        }
+        parameters.put("after", after);
+        return get("?from={from}&size={size}&after={after}", userId, parameters);
     }
 
     public ResponseEntity<Object> search(Long userId, String text, int from, int size) {
@@ -56,6 +87,36 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
+    public ResponseEntity<Object> searchAvailable(long userId, String text, LocalDateTime start, LocalDateTime end,
+                                                  int from, int size) {
+        Map<String, Object> parameters = Map.of(
+                "text", text == null ? "" : text,
+                "start", start,
+                "end", end,
+                "from", from,
+                "size", size
+        );
+        return get("/search/available?text={text}&start={start}&end={end}&from={from}&size={size}",
+                userId, parameters);
+    }
+
+    public ResponseEntity<Object> suggest(long userId, String prefix, int limit) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "limit", limit
+        );
+        return get("/suggest?prefix={prefix}&limit={limit}", userId, parameters);
+    }
+
+    public ResponseEntity<Object> getComments(long itemId, long userId, int size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of("size", size));
+        if (after == null) {
+            return get("/" + itemId + "/comments?size={size}", userId, parameters);
+        }
+        parameters.put("after", after);
+        return get("/" + itemId + "/comments?size={size}&after={after}", userId, parameters);
+    }
+
     public ResponseEntity<Object> addComment(long itemId, long userId, CommentDtoInput text) {
         return post("/" + itemId + "/comment", userId, text);
     }
@@ -2,14 +2,24 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.item.dto.CommentDtoInput;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/items")
@@ -27,6 +37,21 @@ public class ItemController {
         return itemClient.post(userId, itemDto);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> importItems(@RequestBody List<ItemDto> items,
+                                              @RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Importing {} items, userId={}", items.size(), userId);
+        return itemClient.importItems(userId, items);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Object> importItemsStream(HttpServletRequest request,
+                                                    @RequestHeader("X-Sharer-User-Id") long userId)
+            throws IOException {
+        log.info("Importing items from NDJSON stream, userId={}", userId);
+        return itemClient.importItemsStream(userId, request.getInputStream());
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<Object> update(@RequestBody ItemDto itemDto, @PathVariable long id,
                                          @RequestHeader("X-Sharer-User-Id") long userId) {
@@ -40,12 +65,20 @@ public class ItemController {
         return itemClient.getById(id, ownerId);
     }
 
+    @GetMapping("/{id}/request-matches")
+    public ResponseEntity<Object> getRequestMatches(@PathVariable long id,
+                                                    @RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Getting request matches, itemId={}, userId={}", id, userId);
+        return itemClient.getRequestMatches(id, userId);
+    }
+
     @GetMapping
     public ResponseEntity<Object> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
                                          @RequestParam(required = false, defaultValue = "0") int from,
-                                         @RequestParam(required = false, defaultValue = "20") int size) {
-        log.info("Getting all items, userId={}, from={}, size={}", userId, from, size);
-        return itemClient.getAll(userId, from, size);
+                                         @RequestParam(required = false, defaultValue = "20") int size,
+                                         @RequestParam(required = false) String after) {
+        log.info("Getting all items, userId={}, from={}, size={}, after={}", userId, from, size, after);
+        return itemClient.getAll(userId, from, size, after);
     }
 
     @GetMapping("/search")
@@ -57,6 +90,45 @@ public class ItemController {
         return itemClient.search(userId, text, from, size);
     }
 
+    @GetMapping("/search/available")
+    public ResponseEntity<Object> searchAvailable(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @RequestParam(required = false) String text,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime start,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime end,
+                                                  @PositiveOrZero @RequestParam(required = false, defaultValue = "0")
+                                                  int from,
+                                                  @Positive @RequestParam(required = false, defaultValue = "20")
+                                                  int size) {
+        log.info("Search available items, userId={}, text={}, start={}, end={}, from={}, size={}",
+                userId, text, start, end, from, size);
+        return itemClient.searchAvailable(userId, text, start, end, from, size);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Exporting items, userId={}", userId);
+        return itemClient.exportItems(userId);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> suggest(@RequestHeader("X-Sharer-User-Id") long userId,
+                                          @RequestParam(defaultValue = "") String prefix,
+                                          @Positive @Max(50) @RequestParam(defaultValue = "10") int limit) {
+        log.info("Suggest items, userId={}, prefix={}, limit={}", userId, prefix, limit);
+        return itemClient.suggest(userId, prefix, limit);
+    }
+
+    @GetMapping("/{id}/comments")
+    public ResponseEntity<Object> getComments(@PathVariable(name = "id") long itemId,
+                                              @RequestHeader("X-Sharer-User-Id") long userId,
+                                              @Positive @RequestParam(required = false, defaultValue = "20") int size,
+                                              @RequestParam(required = false) String after) {
+        log.info("Getting comments, itemId={}, userId={}, size={}, after={}", itemId, userId, size, after);
+        return itemClient.getComments(itemId, userId, size, after);
+    }
+
     @PostMapping("/{id}/comment")
     public ResponseEntity<Object> addComment(@PathVariable(name = "id") long itemId,
                                              @RequestHeader("X-Sharer-User-Id") long userId,
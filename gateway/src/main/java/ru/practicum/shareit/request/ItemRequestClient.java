@@ -10,6 +10,7 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.request.dto.ItemRequestDtoInput;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -34,15 +35,27 @@ public class ItemRequestClient extends BaseClient {
         return get("/" + requestId, userId);
     }
 
-    public ResponseEntity<Object> getAllOwner(long userId) {
-        return get("", userId);
+    public ResponseEntity<Object> getItemMatches(long requestId, long userId) {
+        return get("/" + requestId + "/item-matches", userId);
     }
 
-    public ResponseEntity<Object> getAll(int from, int size, long userId) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getAllOwner(int from, int size, long userId, String after) {
+        return getPage("", from, size, userId, after);
+    }
+
+    public ResponseEntity<Object> getAll(int from, int size, long userId, String after) {
+        return getPage("/all", from, size, userId, after);
+    }
+
+    private ResponseEntity<Object> getPage(String path, int from, int size, long userId, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("/all", userId, parameters);
+        ));
+        if (after == null) {
+            return get(path + "?from={from}&size={size}", userId, parameters);
+        }
+        parameters.put("after", after);
+        return get(path + "?from={from}&size={size}&after={after}", userId, parameters);
     }
 }
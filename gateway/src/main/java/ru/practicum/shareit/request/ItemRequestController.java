@@ -29,17 +29,22 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> findAllOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
-        log.info("Getting all requests for owner, userId={}", userId);
-        return itemRequestClient.getAllOwner(userId);
+    public ResponseEntity<Object> findAllOwner(@PositiveOrZero @RequestParam(required = false, defaultValue = "0")
+                                               int from,
+                                               @Positive @RequestParam(required = false, defaultValue = "20") int size,
+                                               @RequestHeader("X-Sharer-User-Id") long userId,
+                                               @RequestParam(required = false) String after) {
+        log.info("Getting all requests for owner, from={}, size={}, userId={}, after={}", from, size, userId, after);
+        return itemRequestClient.getAllOwner(from, size, userId, after);
     }
 
     @GetMapping("/all")
     public ResponseEntity<Object> findAll(@PositiveOrZero @RequestParam(required = false, defaultValue = "0") int from,
                                           @Positive @RequestParam(required = false, defaultValue = "20") int size,
-                                          @RequestHeader("X-Sharer-User-Id") long userId) {
-        log.info("Getting all requests, from={}, size={}, userId={}", from, size, userId);
-        return itemRequestClient.getAll(from, size, userId);
+                                          @RequestHeader("X-Sharer-User-Id") long userId,
+                                          @RequestParam(required = false) String after) {
+        log.info("Getting all requests, from={}, size={}, userId={}, after={}", from, size, userId, after);
+        return itemRequestClient.getAll(from, size, userId, after);
     }
 
     @GetMapping("/{id}")
@@ -48,4 +53,11 @@ public class ItemRequestController {
         log.info("Getting request, requestId={}, userId={}", requestId, userId);
         return itemRequestClient.getById(requestId, userId);
     }
+
+    @GetMapping("/{id}/item-matches")
+    public ResponseEntity<Object> findItemMatches(@PathVariable("id") long requestId,
+                                                  @RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Getting item matches, requestId={}, userId={}", requestId, userId);
+        return itemRequestClient.getItemMatches(requestId, userId);
+    }
 }
@@ -1,12 +1,27 @@
 package ru.practicum.shareit.booking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.events.BookingEventHub;
+import ru.practicum.shareit.booking.service.BookingExportService;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.export.NdJsonResponse;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * TODO Sprint add-bookings.
@@ -16,6 +31,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingExportService bookingExportService;
+    private final BookingEventHub bookingEventHub;
+    private final UserExistenceCache userExistenceCache;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public BookingDtoOutput save(@RequestHeader("X-Sharer-User-Id") long userId,
@@ -23,30 +42,69 @@ public class BookingController {
         return bookingService.save(bookingDtoInput, userId);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> approveAll(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                     @RequestBody List<BookingDecisionDto> decisions) {
+        return bookingService.approveAll(userId, decisions);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingDtoOutput approve(@PathVariable long bookingId, @RequestParam Boolean approved,
                                     @RequestHeader("X-Sharer-User-Id") long userId) {
         return bookingService.approve(userId, bookingId, approved);
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader("X-Sharer-User-Id") long userId) {
+        userExistenceCache.throwIfNotFound(userId);
+        return NdJsonResponse.of(objectMapper,
+                (Consumer<BookingExportDto> consumer) -> bookingExportService.exportBookings(userId, consumer));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader("X-Sharer-User-Id") long userId) {
+        userExistenceCache.throwIfNotFound(userId);
+        return bookingEventHub.subscribe(userId);
+    }
+
+    @GetMapping("/counts")
+    public BookingCountsDto countForBooker(@RequestHeader("X-Sharer-User-Id") long userId) {
+        return bookingService.countForBooker(userId);
+    }
+
+    @GetMapping("/owner/counts")
+    public BookingCountsDto countForOwner(@RequestHeader("X-Sharer-User-Id") long owner) {
+        return bookingService.countForOwner(owner);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDtoOutput getById(@PathVariable long bookingId, @RequestHeader("X-Sharer-User-Id") long userId) {
         return bookingService.getById(bookingId, userId);
     }
 
     @GetMapping
-    public List<BookingDtoOutput> getAllForBooker(@RequestParam(required = false, defaultValue = "0") int from,
-                                                  @RequestParam(required = false, defaultValue = "20") int size,
-                                                  @RequestHeader("X-Sharer-User-Id") long userId,
-                                                  @RequestParam(required = false, defaultValue = "ALL") String state) {
-        return bookingService.findAllForBooker(from, size, userId, state);
+    public ResponseEntity<List<BookingDtoOutput>> getAllForBooker(
+            @RequestParam(required = false, defaultValue = "0") int from,
+            @RequestParam(required = false, defaultValue = "20") int size,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(required = false, defaultValue = "ALL") String state,
+            @RequestParam(required = false) String after) {
+        List<BookingDtoOutput> bookings = after == null
+                ? bookingService.findAllForBooker(from, size, userId, state)
+                : bookingService.findAllForBookerAfter(Cursor.decodeWithTimestamp(after), size, userId, state);
+        return Cursor.toResponse(bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
     }
 
     @GetMapping("/owner")
-    public List<BookingDtoOutput> getAllForOwner(@RequestParam(required = false, defaultValue = "0") int from,
-                                                 @RequestParam(required = false, defaultValue = "20") int size,
-                                                 @RequestHeader("X-Sharer-User-Id") long owner,
-                                                 @RequestParam(required = false, defaultValue = "ALL") String state) {
-        return bookingService.findAllForOwner(from, size, owner, state);
+    public ResponseEntity<List<BookingDtoOutput>> getAllForOwner(
+            @RequestParam(required = false, defaultValue = "0") int from,
+            @RequestParam(required = false, defaultValue = "20") int size,
+            @RequestHeader("X-Sharer-User-Id") long owner,
+            @RequestParam(required = false, defaultValue = "ALL") String state,
+            @RequestParam(required = false) String after) {
+        List<BookingDtoOutput> bookings = after == null
+                ? bookingService.findAllForOwner(from, size, owner, state)
+                : bookingService.findAllForOwnerAfter(Cursor.decodeWithTimestamp(after), size, owner, state);
+        return Cursor.toResponse(bookings, size, booking -> Cursor.of(booking.getStart(), booking.getId()));
     }
 }
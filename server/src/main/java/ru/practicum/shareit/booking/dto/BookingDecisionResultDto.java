@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+@Value
+public class BookingDecisionResultDto {
+    long bookingId;
+    BookingStatus status;
+    String error;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDtoForBooking;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки бронирований: вместо сущности арендатора — только его идентификатор.
+ */
+@Value
+public class BookingExportDto {
+    long id;
+    LocalDateTime start;
+    LocalDateTime end;
+    BookingStatus status;
+    long bookerId;
+    ItemDtoForBooking item;
+}
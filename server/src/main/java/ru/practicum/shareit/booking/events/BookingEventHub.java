@@ -0,0 +1,146 @@
+package ru.practicum.shareit.booking.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Рассылка событий о бронированиях подписчикам SSE. Публикация только кладёт событие в ограниченную
+ * очередь каждого подписчика и не ждёт сети; отправкой занимается общий пул потоков, для одного
+ * подписчика — не более одной задачи за раз. Подписчик, очередь которого переполнилась, отключается:
+ * клиент переподключается и перечитывает состояние.
+ * Общего канала между экземплярами сервера нет: событие получают только подписчики, подключённые
+ * к тому экземпляру, который изменил бронирование. При нескольких экземплярах поток — подсказка
+ * к обновлению, а не полный журнал, и клиент периодически перечитывает бронирования сам.
+ */
+@Slf4j
+@Component
+public class BookingEventHub {
+    private static final String METRIC_PREFIX = "shareit.bookings.events.";
+    private static final String EVENT_NAME = "booking";
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Counter overflows;
+
+    public BookingEventHub(@Value("${shareit.bookings.events.buffer-size:64}") int bufferSize,
+                           @Value("${shareit.bookings.events.timeout:30m}") Duration timeout,
+                           @Value("${shareit.bookings.events.sender-threads:4}") int senderThreads,
+                           MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.senders = Executors.newFixedThreadPool(senderThreads);
+        this.overflows = meterRegistry.counter(METRIC_PREFIX + "overflows");
+        Gauge.builder(METRIC_PREFIX + "subscribers", this, BookingEventHub::size).register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(long userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Событие уходит автору бронирования и владельцу вещи после фиксации транзакции.
+     */
+    public void publish(BookingDtoOutput booking, long ownerId) {
+        List<Long> recipients = List.of(booking.getBooker().getId(), ownerId);
+        AfterCommit.run(() -> deliver(booking, recipients));
+    }
+
+    public int size() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    private void deliver(BookingDtoOutput booking, Collection<Long> recipients) {
+        new HashSet<>(recipients).forEach(userId ->
+                subscribers.getOrDefault(userId, Set.of()).forEach(subscriber -> subscriber.offer(booking)));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId, (userId, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+
+    private class Subscriber {
+        private final long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<BookingDtoOutput> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        void offer(BookingDtoOutput booking) {
+            if (!queue.offer(booking)) {
+                overflows.increment();
+                log.warn("Очередь событий пользователя {} переполнена, подписка закрыта.", userId);
+                remove(this);
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                BookingDtoOutput booking;
+                while ((booking = queue.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .name(EVENT_NAME)
+                            .id(String.valueOf(booking.getId()))
+                            .data(booking, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException e) {
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package ru.practicum.shareit.booking.mapper;
 
 import lombok.experimental.UtilityClass;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDtoForItem;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.model.AbstractBooking;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingLifecycle;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingStateCount;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 
+import java.util.Collection;
+import java.util.function.Predicate;
+
 @UtilityClass
 public class BookingMapper {
 
-    public static BookingDtoOutput toBookingDtoOutput(Booking booking) {
+    public static BookingDtoOutput toBookingDtoOutput(AbstractBooking booking) {
         return new BookingDtoOutput(
                 booking.getId(),
                 booking.getStart(),
@@ -21,6 +30,16 @@ public class BookingMapper {
                 ItemMapper.toItemDtoForBooking(booking.getItem()));
     }
 
+    public static BookingExportDto toBookingExportDto(AbstractBooking booking) {
+        return new BookingExportDto(
+                booking.getId(),
+                booking.getStart(),
+                booking.getEnd(),
+                booking.getStatus(),
+                booking.getBooker().getId(),
+                ItemMapper.toItemDtoForBooking(booking.getItem()));
+    }
+
     public static Booking toBooking(BookingDtoInput bookingDtoInput) {
         return new Booking(
                 bookingDtoInput.getStart(),
@@ -28,9 +47,23 @@ public class BookingMapper {
                 BookingStatus.WAITING);
     }
 
-    public static BookingDtoForItem toBookingDtoForItem(Booking booking) {
+    public static BookingDtoForItem toBookingDtoForItem(BookingSlot slot) {
         return new BookingDtoForItem(
-                booking.getId(),
-                booking.getBooker().getId());
+                slot.getId(),
+                slot.getBookerId());
+    }
+
+    public static BookingCountsDto toBookingCountsDto(Collection<BookingStateCount> counts) {
+        return new BookingCountsDto(
+                sum(counts, count -> true),
+                sum(counts, count -> count.getLifecycle() == BookingLifecycle.ACTIVE),
+                sum(counts, count -> count.getLifecycle() == BookingLifecycle.FINISHED),
+                sum(counts, count -> count.getLifecycle() == BookingLifecycle.UPCOMING),
+                sum(counts, count -> count.getStatus() == BookingStatus.WAITING),
+                sum(counts, count -> count.getStatus() == BookingStatus.REJECTED));
+    }
+
+    private static long sum(Collection<BookingStateCount> counts, Predicate<BookingStateCount> state) {
+        return counts.stream().filter(state).mapToLong(BookingStateCount::getCount).sum();
     }
 }
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Общие поля действующего и архивного бронирования.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@MappedSuperclass
+public abstract class AbstractBooking {
+    @Column(name = "start_date")
+    private LocalDateTime start;
+    @Column(name = "end_date")
+    private LocalDateTime end;
+    @OneToOne
+    private Item item;
+    @OneToOne
+    private User booker;
+    @Enumerated(EnumType.STRING)
+    private BookingStatus status;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 16)
+    private BookingLifecycle lifecycle;
+
+    protected AbstractBooking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        this.start = start;
+        this.end = end;
+        this.status = status;
+        this.lifecycle = BookingLifecycle.at(start, end, LocalDateTime.now());
+    }
+
+    public abstract long getId();
+}
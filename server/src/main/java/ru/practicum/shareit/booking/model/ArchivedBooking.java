@@ -0,0 +1,25 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+
+/**
+ * Завершённое бронирование, перенесённое из bookings архивацией. Сохраняет исходный id.
+ */
+@Getter
+@Setter
+@Entity
+@Immutable
+@NoArgsConstructor
+@Table(name = "bookings_archive", indexes = {
+        @Index(name = "idx_bookings_archive_booker_id_start_date", columnList = "booker_id, start_date, id"),
+        @Index(name = "idx_bookings_archive_item_id_start_date", columnList = "item_id, start_date, id")})
+public class ArchivedBooking extends AbstractBooking {
+    @Id
+    @Column
+    private long id;
+}
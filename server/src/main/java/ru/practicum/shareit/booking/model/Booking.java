@@ -3,8 +3,6 @@ package ru.practicum.shareit.booking.model;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -16,26 +14,24 @@ import java.time.LocalDateTime;
 @Setter
 @Entity
 @NoArgsConstructor
-@Table(name = "bookings")
-public class Booking {
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_bookings_booker_id_start_date", columnList = "booker_id, start_date, id"),
+        @Index(name = "idx_bookings_item_id_start_date", columnList = "item_id, start_date, id"),
+        @Index(name = "idx_bookings_status", columnList = "status"),
+        @Index(name = "idx_bookings_booker_id_lifecycle", columnList = "booker_id, lifecycle, start_date, id"),
+        @Index(name = "idx_bookings_item_id_lifecycle", columnList = "item_id, lifecycle, start_date, id"),
+        @Index(name = "idx_bookings_lifecycle_start_date", columnList = "lifecycle, start_date"),
+        @Index(name = "idx_bookings_lifecycle_end_date", columnList = "lifecycle, end_date")})
+public class Booking extends AbstractBooking {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column
     private long id;
-    @Column(name = "start_date")
-    private LocalDateTime start;
-    @Column(name = "end_date")
-    private LocalDateTime end;
-    @OneToOne
-    private Item item;
-    @OneToOne
-    private User booker;
-    @Enumerated(EnumType.STRING)
-    private BookingStatus status;
+    @Version
+    @Column(nullable = false)
+    private long version;
 
     public Booking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
-        this.start = start;
-        this.end = end;
-        this.status = status;
+        super(start, end, status);
     }
 }
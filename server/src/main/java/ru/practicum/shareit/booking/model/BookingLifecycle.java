@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.model;
+
+import java.time.LocalDateTime;
+
+public enum BookingLifecycle {
+    UPCOMING,
+    ACTIVE,
+    FINISHED;
+
+    public static BookingLifecycle at(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (start.isAfter(now)) {
+            return UPCOMING;
+        }
+        return end.isAfter(now) ? ACTIVE : FINISHED;
+    }
+}
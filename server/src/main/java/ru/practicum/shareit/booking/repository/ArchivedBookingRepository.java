@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+import static ru.practicum.shareit.booking.repository.BookingRepository.EXPORT_FETCH_SIZE;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+
+    @Modifying
+    @Query(value = "insert into bookings_archive (id, start_date, end_date, item_id, booker_id, status, lifecycle) " +
+            "select id, start_date, end_date, item_id, booker_id, status, lifecycle from bookings " +
+            "where id in ?1", nativeQuery = true)
+    int copyFromBookings(Collection<Long> bookingIds);
+
+    @Query("select new ru.practicum.shareit.booking.timeline.BookingSlot(" +
+            "b.id, b.item.id, b.booker.id, b.start, b.end, b.status) " +
+            "from ArchivedBooking b where b.item.id in ?1")
+    List<BookingSlot> findSlotsByItemIdIn(Collection<Long> itemIds);
+
+    @Query("select new ru.practicum.shareit.booking.repository.BookingStateCount(b.lifecycle, b.status, count(b)) " +
+            "from ArchivedBooking b where b.booker.id = ?1 group by b.lifecycle, b.status")
+    List<BookingStateCount> countByBookerId(long bookerId);
+
+    @Query("select new ru.practicum.shareit.booking.repository.BookingStateCount(b.lifecycle, b.status, count(b)) " +
+            "from ArchivedBooking b where b.item.owner.id = ?1 group by b.lifecycle, b.status")
+    List<BookingStateCount> countByItemOwnerId(long ownerId);
+
+    boolean existsByItemIdAndBookerIdAndEndBefore(long itemId, long bookerId, LocalDateTime dateTime);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from ArchivedBooking b " +
+            "join fetch b.booker " +
+            "join fetch b.item i " +
+            "join fetch i.owner " +
+            "left join fetch i.request " +
+            "where b.booker.id = ?1 or i.owner.id = ?1 " +
+            "order by b.id")
+    Stream<ArchivedBooking> streamAllByBookerIdOrOwnerId(long userId);
+}
@@ -2,20 +2,88 @@ package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingLifecycle;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
-    List<Booking> findAllByBookerIdOrderByStartDesc(long bookerId, Pageable pageable);
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingRepositoryCustom {
+    int EXPORT_FETCH_SIZE = 500;
 
-    List<Booking> findAllByItemOwnerIdOrderByStartDesc(long ownerId, Pageable pageable);
+    @Query("select new ru.practicum.shareit.booking.timeline.BookingSlot(" +
+            "b.id, b.item.id, b.booker.id, b.start, b.end, b.status) " +
+            "from Booking b where b.item.id in ?1")
+    List<BookingSlot> findSlotsByItemIdIn(Collection<Long> itemIds);
 
-    Booking findFirstByItemIdAndEndBefore(long itemId, LocalDateTime date);
+    @Query("select new ru.practicum.shareit.booking.timeline.BookingSlot(" +
+            "b.id, b.item.id, b.booker.id, b.start, b.end, b.status) " +
+            "from Booking b where b.status in ?1 and b.end > ?2 and b.start < ?3")
+    List<BookingSlot> findSlotsByStatusInAndOverlapping(Collection<BookingStatus> statuses, LocalDateTime from,
+                                                        LocalDateTime to);
 
-    Booking findFirstByItemIdAndStartAfter(long itemId, LocalDateTime date);
+    @Query("select distinct b.item.id from Booking b " +
+            "where b.item.id in ?1 and b.status in ?2 and b.end > ?3 and b.start < ?4")
+    Set<Long> findItemIdsByStatusInAndOverlapping(Collection<Long> itemIds, Collection<BookingStatus> statuses,
+                                                  LocalDateTime from, LocalDateTime to);
 
-    Booking findBookingByItemIdAndBookerIdAndEndBefore(long itemId, long bookerId, LocalDateTime dateTime);
+    @Query("select case when count(b) > 0 then true else false end from Booking b " +
+            "where b.item.id = ?1 and b.status = ?4 and b.start < ?3 and b.end > ?2 and b.id <> ?5")
+    boolean existsOverlapping(long itemId, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                              long excludedBookingId);
+
+    @Query("select b from Booking b " +
+            "join fetch b.item i " +
+            "join fetch i.owner " +
+            "join fetch b.booker " +
+            "where b.id in ?1")
+    List<Booking> findAllWithItemByIdIn(Collection<Long> bookingIds);
+
+    @Modifying
+    @Query(value = "update bookings set lifecycle = 'ACTIVE' where lifecycle = 'UPCOMING' and id in (" +
+            "select id from bookings where lifecycle = 'UPCOMING' and start_date <= ?1 " +
+            "order by start_date limit ?2)", nativeQuery = true)
+    int activateStarted(LocalDateTime now, int batchSize);
+
+    @Modifying
+    @Query(value = "update bookings set lifecycle = 'FINISHED' where lifecycle = 'ACTIVE' and id in (" +
+            "select id from bookings where lifecycle = 'ACTIVE' and end_date <= ?1 " +
+            "order by end_date limit ?2)", nativeQuery = true)
+    int finishEnded(LocalDateTime now, int batchSize);
+
+    @Query("select b.id from Booking b where b.lifecycle = ?1 and b.end < ?2 order by b.end")
+    List<Long> findIdsByLifecycleAndEndBefore(BookingLifecycle lifecycle, LocalDateTime cutoff, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.booking.repository.BookingStateCount(b.lifecycle, b.status, count(b)) " +
+            "from Booking b where b.booker.id = ?1 group by b.lifecycle, b.status")
+    List<BookingStateCount> countByBookerId(long bookerId);
+
+    @Query("select new ru.practicum.shareit.booking.repository.BookingStateCount(b.lifecycle, b.status, count(b)) " +
+            "from Booking b where b.item.owner.id = ?1 group by b.lifecycle, b.status")
+    List<BookingStateCount> countByItemOwnerId(long ownerId);
+
+    boolean existsByItemIdAndBookerIdAndEndBefore(long itemId, long bookerId, LocalDateTime dateTime);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from Booking b " +
+            "join fetch b.booker " +
+            "join fetch b.item i " +
+            "join fetch i.owner " +
+            "left join fetch i.request " +
+            "where b.booker.id = ?1 or i.owner.id = ?1 " +
+            "order by b.id")
+    Stream<Booking> streamAllByBookerIdOrOwnerId(long userId);
 }
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.util.List;
+
+public interface BookingRepositoryCustom {
+
+    List<Booking> findPage(Specification<Booking> specification, Pageable pageable);
+
+    List<ArchivedBooking> findArchivedPage(Specification<ArchivedBooking> specification, Pageable pageable);
+}
@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.practicum.shareit.booking.model.AbstractBooking;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.*;
+import java.util.List;
+
+/**
+ * Страница бронирований по спецификации без отдельного count-запроса,
+ * который выполнял бы JpaSpecificationExecutor.
+ */
+@RequiredArgsConstructor
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Booking> findPage(Specification<Booking> specification, Pageable pageable) {
+        return findPage(Booking.class, specification, pageable);
+    }
+
+    @Override
+    public List<ArchivedBooking> findArchivedPage(Specification<ArchivedBooking> specification, Pageable pageable) {
+        return findPage(ArchivedBooking.class, specification, pageable);
+    }
+
+    private <T extends AbstractBooking> List<T> findPage(Class<T> type, Specification<T> specification,
+                                                         Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(type);
+        Root<T> root = query.from(type);
+        root.fetch("booker");
+        Fetch<T, Item> item = root.fetch("item");
+        item.fetch("owner");
+        item.fetch("request", JoinType.LEFT);
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root).orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.shareit.booking.model.AbstractBooking;
+import ru.practicum.shareit.booking.model.BookingLifecycle;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.pagination.Cursor;
+
+@UtilityClass
+public class BookingSpecifications {
+
+    public static <T extends AbstractBooking> Specification<T> bookerIs(long bookerId) {
+        return (root, query, builder) -> builder.equal(root.get("booker").get("id"), bookerId);
+    }
+
+    public static <T extends AbstractBooking> Specification<T> itemOwnerIs(long ownerId) {
+        return (root, query, builder) -> builder.equal(root.get("item").get("owner").get("id"), ownerId);
+    }
+
+    public static <T extends AbstractBooking> Specification<T> startsBefore(Cursor cursor) {
+        if (cursor == null) {
+            return (root, query, builder) -> null;
+        }
+        return (root, query, builder) -> builder.or(
+                builder.lessThan(root.get("start"), cursor.getTimestamp()),
+                builder.and(builder.equal(root.get("start"), cursor.getTimestamp()),
+                        builder.lessThan(root.get("id"), cursor.getId())));
+    }
+
+    /**
+     * Архивные бронирования всегда завершены, поэтому для CURRENT и FUTURE архив не читается.
+     */
+    public static boolean includesFinished(String state) {
+        return !"CURRENT".equals(state) && !"FUTURE".equals(state);
+    }
+
+    public static <T extends AbstractBooking> Specification<T> inState(String state) {
+        switch (state) {
+            case "WAITING":
+                return (root, query, builder) -> builder.equal(root.get("status"), BookingStatus.WAITING);
+            case "REJECTED":
+                return (root, query, builder) -> builder.equal(root.get("status"), BookingStatus.REJECTED);
+            case "PAST":
+                return (root, query, builder) -> builder.equal(root.get("lifecycle"), BookingLifecycle.FINISHED);
+            case "FUTURE":
+                return (root, query, builder) -> builder.equal(root.get("lifecycle"), BookingLifecycle.UPCOMING);
+            case "CURRENT":
+                return (root, query, builder) -> builder.equal(root.get("lifecycle"), BookingLifecycle.ACTIVE);
+            default:
+                return (root, query, builder) -> null;
+        }
+    }
+}
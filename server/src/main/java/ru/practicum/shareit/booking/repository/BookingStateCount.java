@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.BookingLifecycle;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+@Value
+public class BookingStateCount {
+    BookingLifecycle lifecycle;
+    BookingStatus status;
+    long count;
+}
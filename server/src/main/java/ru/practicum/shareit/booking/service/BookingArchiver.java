@@ -0,0 +1,68 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.BookingLifecycle;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Переносит бронирования, завершившиеся раньше порога, из bookings в bookings_archive.
+ * Каждая порция копируется и удаляется в своей короткой транзакции и блокирует только свои строки.
+ * Если ту же порцию уже перенёс другой экземпляр сервера, транзакция откатывается и прогон завершается.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingArchiver {
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${shareit.bookings.archive.retention:365d}")
+    private Duration retention = Duration.ofDays(365);
+
+    @Value("${shareit.bookings.archive.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Scheduled(cron = "${shareit.bookings.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        archive(LocalDateTime.now().minus(retention));
+    }
+
+    public int archive(LocalDateTime cutoff) {
+        int archived = 0;
+        List<Long> chunk;
+        do {
+            try {
+                chunk = transactionTemplate.execute(status -> moveChunk(cutoff));
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Порция бронирований уже перенесена в архив другим экземпляром, архивация остановлена.");
+                break;
+            }
+            archived += chunk.size();
+        } while (chunk.size() == chunkSize);
+        log.info("В архив перенесено {} бронирований, завершившихся до {}.", archived, cutoff);
+        return archived;
+    }
+
+    private List<Long> moveChunk(LocalDateTime cutoff) {
+        List<Long> ids = bookingRepository.findIdsByLifecycleAndEndBefore(BookingLifecycle.FINISHED, cutoff,
+                PageRequest.of(0, chunkSize));
+        if (!ids.isEmpty()) {
+            archivedBookingRepository.copyFromBookings(ids);
+            bookingRepository.deleteAllByIdInBatch(ids);
+        }
+        return ids;
+    }
+}
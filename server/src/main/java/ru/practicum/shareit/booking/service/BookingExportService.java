@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+
+import java.util.function.Consumer;
+
+public interface BookingExportService {
+
+    void exportBookings(long userId, Consumer<BookingExportDto> consumer);
+}
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.AbstractBooking;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingExportServiceImpl implements BookingExportService {
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBookings(long userId, Consumer<BookingExportDto> consumer) {
+        long exported;
+        try (Stream<Booking> bookings = bookingRepository.streamAllByBookerIdOrOwnerId(userId)) {
+            exported = export(bookings, consumer);
+        }
+        try (Stream<ArchivedBooking> archived = archivedBookingRepository.streamAllByBookerIdOrOwnerId(userId)) {
+            exported += export(archived, consumer);
+        }
+        log.info("Выгружено {} бронирований пользователя {}.", exported, userId);
+    }
+
+    private <T extends AbstractBooking> long export(Stream<T> bookings, Consumer<BookingExportDto> consumer) {
+        long exported = 0;
+        for (T booking : (Iterable<T>) bookings::iterator) {
+            consumer.accept(BookingMapper.toBookingExportDto(booking));
+            entityManager.detach(booking);
+            if (++exported % BookingRepository.EXPORT_FETCH_SIZE == 0) {
+                entityManager.clear();
+            }
+        }
+        return exported;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.function.ToIntFunction;
+
+/**
+ * Переводит бронирования по жизненному циклу UPCOMING -> ACTIVE -> FINISHED пачками в порядке
+ * начала и окончания. Каждая пачка — отдельная транзакция с условным обновлением, поэтому
+ * одновременный запуск на нескольких экземплярах сервера лишь делит работу, но не портит данные.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingLifecycleSweeper {
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${shareit.bookings.lifecycle.batch-size:500}")
+    private int batchSize = 500;
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.lifecycle.sweep-interval:PT1M}")
+    public void sweep() {
+        sweep(LocalDateTime.now());
+    }
+
+    public int sweep(LocalDateTime now) {
+        int activated = advance(size -> bookingRepository.activateStarted(now, size));
+        int finished = advance(size -> bookingRepository.finishEnded(now, size));
+        if (activated + finished > 0) {
+            log.info("Жизненный цикл бронирований обновлён: начались {}, завершились {}.", activated, finished);
+        }
+        return activated + finished;
+    }
+
+    private int advance(ToIntFunction<Integer> batch) {
+        int total = 0;
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> batch.applyAsInt(batchSize));
+            total += updated;
+        } while (updated == batchSize);
+        return total;
+    }
+}
@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * На PostgreSQL таблица bookings секционирована по start_date (см. schema-postgresql.sql).
+ * Заранее создаёт месячные секции на {@code months-ahead} месяцев вперёд, чтобы новые бронирования
+ * не оседали в секции по умолчанию. Исключающее ограничение на пересечение подтверждённых
+ * бронирований задаётся для каждой секции отдельно; пересечения между секциями отсекает проверка
+ * в BookingServiceImpl, упорядоченная версией вещи.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "spring.sql.init.platform", havingValue = "postgresql")
+public class BookingPartitionManager {
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${shareit.bookings.partitions.months-ahead:12}")
+    private int monthsAhead = 12;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.bookings.partitions.cron:0 0 3 * * *}")
+    public void ensurePartitions() {
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            try {
+                jdbcTemplate.execute(partitionDdl(month.plusMonths(i)));
+            } catch (DataAccessException e) {
+                log.warn("Не удалось создать секцию бронирований за {}: {}", month.plusMonths(i), e.getMessage());
+            }
+        }
+    }
+
+    static String partitionDdl(YearMonth month) {
+        String name = "bookings_" + month.format(SUFFIX);
+        return "CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF bookings (" +
+                "CONSTRAINT " + name + "_approved_no_overlap EXCLUDE USING gist " +
+                "(item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status = 'APPROVED')) " +
+                "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+}
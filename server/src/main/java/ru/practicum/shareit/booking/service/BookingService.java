@@ -1,7 +1,11 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.pagination.Cursor;
 
 import java.util.List;
 
@@ -11,9 +15,19 @@ public interface BookingService {
 
     BookingDtoOutput approve(long userId, long bookingId, boolean status);
 
+    List<BookingDecisionResultDto> approveAll(long userId, List<BookingDecisionDto> decisions);
+
     BookingDtoOutput getById(long bookingId, long userId);
 
     List<BookingDtoOutput> findAllForBooker(int from, int size, long bookerId, String state);
 
     List<BookingDtoOutput> findAllForOwner(int from, int size, long ownerId, String state);
+
+    List<BookingDtoOutput> findAllForBookerAfter(Cursor after, int size, long bookerId, String state);
+
+    List<BookingDtoOutput> findAllForOwnerAfter(Cursor after, int size, long ownerId, String state);
+
+    BookingCountsDto countForBooker(long bookerId);
+
+    BookingCountsDto countForOwner(long ownerId);
 }
@@ -2,34 +2,70 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.events.BookingEventHub;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.AbstractBooking;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingStateCount;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.booking.timeline.ItemOccupancyIndex;
+import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.view.ItemViewService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.retry.OptimisticRetry;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ru.practicum.shareit.booking.repository.BookingSpecifications.*;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "start", "id");
+    private static final Comparator<AbstractBooking> NEWEST_FIRST_ORDER = Comparator
+            .comparing(AbstractBooking::getStart).thenComparingLong(AbstractBooking::getId).reversed();
+
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
+    private final ItemViewService itemViewService;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final ItemOccupancyIndex itemOccupancyIndex;
+    private final BookingEventHub bookingEventHub;
+    private final OptimisticRetry optimisticRetry;
 
     @Override
+    @Transactional
     public BookingDtoOutput save(BookingDtoInput bookingDtoInput, long userId) {
         Item item = getItem(bookingDtoInput.getItemId());
         if (item.getOwner().getId() == userId) {
@@ -49,12 +85,23 @@ public class BookingServiceImpl implements BookingService {
             log.error("Вещь занята другим пользователем.");
             throw new ValidationException("Вещь занята другим пользователем.");
         }
-        return BookingMapper.toBookingDtoOutput(bookingRepository.save(booking));
+        throwIfOverlapsApproved(booking);
+        Booking saved = bookingRepository.save(booking);
+        bookingTimelineCache.record(saved);
+        itemOccupancyIndex.record(saved);
+        BookingDtoOutput savedBooking = BookingMapper.toBookingDtoOutput(saved);
+        itemViewService.refresh(item.getId());
+        bookingEventHub.publish(savedBooking, item.getOwner().getId());
+        return savedBooking;
     }
 
     @Override
     public BookingDtoOutput approve(long userId, long bookingId, boolean status) {
-        throwIfUserNotFound(userId);
+        return optimisticRetry.execute(() -> approveOnce(userId, bookingId, status));
+    }
+
+    private BookingDtoOutput approveOnce(long userId, long bookingId, boolean status) {
+        userExistenceCache.throwIfNotFound(userId);
         Booking booking = getBooking(bookingId);
         if (booking.getItem().getOwner().getId() != userId) {
             log.error("Подтверждение или отклонение запроса на бронирование может быть выполнено " +
@@ -66,14 +113,135 @@ public class BookingServiceImpl implements BookingService {
             log.error("Статус бронирования уже подтверждён.");
             throw new ValidationException("Статус бронирования уже подтверждён.");
         }
+        if (!booking.getStatus().equals(BookingStatus.WAITING)) {
+            log.error("Решение по бронированию уже принято.");
+            throw new AlreadyExistsException("Решение по бронированию уже принято.");
+        }
+        if (status) {
+            touchItems(List.of(booking.getItem().getId()));
+            throwIfOverlapsApproved(booking);
+        }
         booking.setStatus(status ? BookingStatus.APPROVED : BookingStatus.REJECTED);
-        return BookingMapper.toBookingDtoOutput(bookingRepository.save(booking));
+        BookingDtoOutput savedBooking;
+        try {
+            savedBooking = BookingMapper.toBookingDtoOutput(bookingRepository.saveAndFlush(booking));
+            bookingTimelineCache.record(booking);
+            itemOccupancyIndex.record(booking);
+        } catch (DataIntegrityViolationException e) {
+            log.error("Вещь уже забронирована на пересекающийся период.");
+            throw new AlreadyExistsException("Вещь уже забронирована на пересекающийся период.");
+        }
+        itemViewService.refresh(booking.getItem().getId());
+        bookingEventHub.publish(savedBooking, booking.getItem().getOwner().getId());
+        return savedBooking;
+    }
+
+    @Override
+    public List<BookingDecisionResultDto> approveAll(long userId, List<BookingDecisionDto> decisions) {
+        try {
+            return optimisticRetry.execute(() -> approveAllOnce(userId, decisions));
+        } catch (DataIntegrityViolationException e) {
+            log.error("Пакет решений по бронированиям отклонён базой, применяем решения по одному: " + e.getMessage());
+        }
+        return approveEach(userId, decisions);
+    }
+
+    /**
+     * Каждое решение применяется в своей транзакции, поэтому нарушение ограничения пересечения
+     * отклоняет только то бронирование, на котором оно возникло.
+     */
+    private List<BookingDecisionResultDto> approveEach(long userId, List<BookingDecisionDto> decisions) {
+        List<BookingDecisionResultDto> results = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (BookingDecisionDto decision : decisions) {
+            if (!seen.add(decision.getBookingId())) {
+                results.add(new BookingDecisionResultDto(decision.getBookingId(), null,
+                        "Решение по бронированию уже указано в этом запросе."));
+                continue;
+            }
+            try {
+                results.addAll(optimisticRetry.execute(() -> approveAllOnce(userId, List.of(decision))));
+            } catch (DataIntegrityViolationException e) {
+                results.add(new BookingDecisionResultDto(decision.getBookingId(), null,
+                        "Вещь уже забронирована на пересекающийся период."));
+            }
+        }
+        return results;
+    }
+
+    private List<BookingDecisionResultDto> approveAllOnce(long userId, List<BookingDecisionDto> decisions) {
+        userExistenceCache.throwIfNotFound(userId);
+        Map<Long, Booking> bookings = bookingRepository.findAllWithItemByIdIn(decisions.stream()
+                        .map(BookingDecisionDto::getBookingId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        BookingDecisionResultDto[] results = new BookingDecisionResultDto[decisions.size()];
+        Map<Integer, Booking> accepted = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            long bookingId = decisions.get(i).getBookingId();
+            Booking booking = bookings.get(bookingId);
+            String error = null;
+            if (!seen.add(bookingId)) {
+                error = "Решение по бронированию уже указано в этом запросе.";
+            } else if (booking == null) {
+                error = "Такого бронирования не существует.";
+            } else if (booking.getItem().getOwner().getId() != userId) {
+                error = "Подтверждение или отклонение запроса на бронирование может быть выполнено " +
+                        "только владельцем вещи.";
+            } else if (booking.getStatus().equals(BookingStatus.APPROVED)) {
+                error = "Статус бронирования уже подтверждён.";
+            } else if (!booking.getStatus().equals(BookingStatus.WAITING)) {
+                error = "Решение по бронированию уже принято.";
+            }
+            if (error != null) {
+                results[i] = new BookingDecisionResultDto(bookingId, null, error);
+            } else {
+                accepted.put(i, booking);
+            }
+        }
+        touchItems(accepted.entrySet().stream()
+                .filter(entry -> decisions.get(entry.getKey()).isApproved())
+                .map(entry -> entry.getValue().getItem().getId())
+                .collect(Collectors.toSet()));
+        Map<Long, List<Booking>> approvedInBatch = new HashMap<>();
+        List<Booking> changed = new ArrayList<>();
+        accepted.forEach((i, booking) -> {
+            boolean approved = decisions.get(i).isApproved();
+            if (approved && (overlapsApproved(booking)
+                    || overlapsAny(booking, approvedInBatch.getOrDefault(booking.getItem().getId(), List.of())))) {
+                results[i] = new BookingDecisionResultDto(booking.getId(), null,
+                        "Вещь уже забронирована на пересекающийся период.");
+                return;
+            }
+            booking.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+            if (approved) {
+                approvedInBatch.computeIfAbsent(booking.getItem().getId(), itemId -> new ArrayList<>()).add(booking);
+            }
+            changed.add(booking);
+            results[i] = new BookingDecisionResultDto(booking.getId(), booking.getStatus(), null);
+        });
+        bookingRepository.saveAll(changed);
+        bookingRepository.flush();
+        changed.forEach(booking -> {
+            bookingTimelineCache.record(booking);
+            itemOccupancyIndex.record(booking);
+            bookingEventHub.publish(BookingMapper.toBookingDtoOutput(booking), userId);
+        });
+        itemViewService.refreshAll(changed.stream().map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet()));
+        log.info("Пакетное решение по бронированиям: изменено {} из {}.", changed.size(), decisions.size());
+        return Arrays.asList(results);
     }
 
     @Override
     public BookingDtoOutput getById(long bookingId, long userId) {
-        throwIfUserNotFound(userId);
-        Booking booking = getBooking(bookingId);
+        userExistenceCache.throwIfNotFound(userId);
+        AbstractBooking booking = bookingRepository.findById(bookingId).<AbstractBooking>map(Function.identity())
+                .or(() -> archivedBookingRepository.findById(bookingId))
+                .orElseThrow(() -> {
+                    log.error("Такого бронирования не существует.");
+                    return new NotFoundException("Такого бронирования не существует.");
+                });
         Item item = getItem(booking.getItem().getId());
         if (booking.getBooker().getId() != userId) {
             if (item.getOwner().getId() != userId) {
@@ -87,51 +255,116 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public List<BookingDtoOutput> findAllForBooker(int from, int size, long bookerId, String state) {
-        throwIfUserNotFound(bookerId);
-        return findBookings(bookingRepository.findAllByBookerIdOrderByStartDesc(bookerId,
-                PageRequest.of(from / size, size)), state).stream()
-                .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
+        userExistenceCache.throwIfNotFound(bookerId);
+        return findBookings(false, bookerId, null, state, PageRequest.of(from / size, size, NEWEST_FIRST));
     }
 
     @Override
     public List<BookingDtoOutput> findAllForOwner(int from, int size, long ownerId, String state) {
-        throwIfUserNotFound(ownerId);
-        //throwIfWrongParam(from, size, ownerId);
-        if (itemRepository.findAllByOwnerId(ownerId).isEmpty()) {
-            log.error("Вы не можете получить список бронирований, так как у вас нет вещей.");
-            throw new ValidationException("Вы не можете получить список бронирований, так как у вас нет вещей.");
+        userExistenceCache.throwIfNotFound(ownerId);
+        throwIfOwnsNoItems(ownerId);
+        return findBookings(true, ownerId, null, state, PageRequest.of(from / size, size, NEWEST_FIRST));
+    }
+
+    @Override
+    public List<BookingDtoOutput> findAllForBookerAfter(Cursor after, int size, long bookerId, String state) {
+        userExistenceCache.throwIfNotFound(bookerId);
+        return findBookings(false, bookerId, after, state, PageRequest.of(0, size, NEWEST_FIRST));
+    }
+
+    @Override
+    public List<BookingDtoOutput> findAllForOwnerAfter(Cursor after, int size, long ownerId, String state) {
+        userExistenceCache.throwIfNotFound(ownerId);
+        throwIfOwnsNoItems(ownerId);
+        return findBookings(true, ownerId, after, state, PageRequest.of(0, size, NEWEST_FIRST));
+    }
+
+    /**
+     * Все счётчики считаются одним сгруппированным запросом по (lifecycle, status) к каждой таблице.
+     */
+    @Override
+    public BookingCountsDto countForBooker(long bookerId) {
+        userExistenceCache.throwIfNotFound(bookerId);
+        return BookingMapper.toBookingCountsDto(concat(bookingRepository.countByBookerId(bookerId),
+                archivedBookingRepository.countByBookerId(bookerId)));
+    }
+
+    @Override
+    public BookingCountsDto countForOwner(long ownerId) {
+        userExistenceCache.throwIfNotFound(ownerId);
+        return BookingMapper.toBookingCountsDto(concat(bookingRepository.countByItemOwnerId(ownerId),
+                archivedBookingRepository.countByItemOwnerId(ownerId)));
+    }
+
+    private static List<BookingStateCount> concat(List<BookingStateCount> current, List<BookingStateCount> archived) {
+        List<BookingStateCount> counts = new ArrayList<>(current);
+        counts.addAll(archived);
+        return counts;
+    }
+
+    /**
+     * Для состояний, в которые попадают завершённые бронирования, дочитывает архив: из обеих таблиц берётся
+     * голова нужной длины, и страница вырезается после слияния.
+     */
+    private List<BookingDtoOutput> findBookings(boolean asOwner, long userId, Cursor after, String state,
+                                                Pageable pageable) {
+        Specification<Booking> current = filter(asOwner, userId, after, state);
+        if (!includesFinished(state)) {
+            return bookingRepository.findPage(current, pageable).stream()
+                    .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
         }
-        return findBookings(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(ownerId,
-                PageRequest.of(from / size, size)), state).stream()
-                .map(BookingMapper::toBookingDtoOutput).collect(Collectors.toList());
+        Specification<ArchivedBooking> archived = filter(asOwner, userId, after, state);
+        Pageable head = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+        return Stream.<AbstractBooking>concat(bookingRepository.findPage(current, head).stream(),
+                        bookingRepository.findArchivedPage(archived, head).stream())
+                .sorted(NEWEST_FIRST_ORDER)
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .map(BookingMapper::toBookingDtoOutput)
+                .collect(Collectors.toList());
+    }
+
+    private static <T extends AbstractBooking> Specification<T> filter(boolean asOwner, long userId, Cursor after,
+                                                                       String state) {
+        Specification<T> party = asOwner ? itemOwnerIs(userId) : bookerIs(userId);
+        return party.and(startsBefore(after)).and(inState(state));
     }
 
-    public List<Booking> findBookings(List<Booking> bookings, String state) {
-        switch (state) {
-            case "WAITING":
-                return bookings.stream().filter(booking -> booking.getStatus().equals(BookingStatus.WAITING))
-                        .collect(Collectors.toList());
-            case "PAST":
-                return bookings.stream().filter(booking -> booking.getEnd().isBefore(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-            case "FUTURE":
-                return bookings.stream().filter(booking -> booking.getStart().isAfter(LocalDateTime.now()))
-                        .collect(Collectors.toList());
-            case "REJECTED":
-                return bookings.stream().filter(booking -> booking.getStatus().equals(BookingStatus.REJECTED))
-                        .collect(Collectors.toList());
-            case "CURRENT":
-                return bookings.stream().filter(booking -> booking.getStart().isBefore(LocalDateTime.now())
-                        && booking.getEnd().isAfter(LocalDateTime.now())).collect(Collectors.toList());
-            default:
-                return bookings;
+    /**
+     * Подтверждение увеличивает версию вещи вместо блокировки её строки: проверка пересечений
+     * не ждёт чужих транзакций, а из двух параллельных подтверждений одной вещи второе получает
+     * конфликт версий при фиксации и повторяется OptimisticRetry уже с учётом первого. Так
+     * пересечения не проходят и между секциями bookings, где исключающее ограничение их не видит.
+     * Создание бронирования вещь не трогает: оно добавляет только ожидающие бронирования, а их
+     * пересечения с подтверждёнными перепроверяются при подтверждении.
+     */
+    private void touchItems(Collection<Long> itemIds) {
+        if (!itemIds.isEmpty()) {
+            itemRepository.touchAllByIdIn(itemIds);
         }
     }
 
-    public void throwIfUserNotFound(long userId) {
-        if (userRepository.findById(userId).isEmpty()) {
-            log.error("Пользователя c идентификатором " + userId + " не существует.");
-            throw new NotFoundException("пользователя c идентификатором " + userId + " не существует.");
+    private void throwIfOverlapsApproved(Booking booking) {
+        if (overlapsApproved(booking)) {
+            log.error("Вещь уже забронирована на пересекающийся период.");
+            throw new AlreadyExistsException("Вещь уже забронирована на пересекающийся период.");
+        }
+    }
+
+    private boolean overlapsApproved(Booking booking) {
+        return bookingRepository.existsOverlapping(booking.getItem().getId(), booking.getStart(), booking.getEnd(),
+                BookingStatus.APPROVED, booking.getId());
+    }
+
+    private static boolean overlapsAny(Booking booking, List<Booking> others) {
+        return others.stream().anyMatch(other -> other.getStart().isBefore(booking.getEnd())
+                && other.getEnd().isAfter(booking.getStart()));
+    }
+
+    private void throwIfOwnsNoItems(long ownerId) {
+        if (!itemRepository.existsByOwnerId(ownerId)) {
+            log.error("Вы не можете получить список бронирований, так как у вас нет вещей.");
+            throw new ValidationException("Вы не можете получить список бронирований, так как у вас нет вещей.");
         }
     }
 
@@ -152,10 +385,7 @@ public class BookingServiceImpl implements BookingService {
     }
 
     private User getUser(long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.error("Пользователя c идентификатором " + userId + " не существует.");
-                    return new NotFoundException("Пользователя c идентификатором " + userId + " не существует.");
-                });
+        userExistenceCache.throwIfNotFound(userId);
+        return userRepository.getReferenceById(userId);
     }
 }
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking.timeline;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.model.AbstractBooking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+@Value
+public class BookingSlot {
+    long id;
+    long itemId;
+    long bookerId;
+    LocalDateTime start;
+    LocalDateTime end;
+    BookingStatus status;
+
+    public static BookingSlot of(AbstractBooking booking) {
+        return new BookingSlot(booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd(), booking.getStatus());
+    }
+}
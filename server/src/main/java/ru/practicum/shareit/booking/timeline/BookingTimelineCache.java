@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking.timeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Лениво загружаемые таймлайны бронирований по вещам для списка вещей владельца. Холодные вещи
+ * вытесняются по размеру (LRU), а загруженный таймлайн живёт не дольше {@code ttl}: бронирования,
+ * записанные другими экземплярами сервиса, сюда не доходят и подхватываются при перечитывании.
+ * Запись применяется к таймлайну только после фиксации транзакции, поэтому незафиксированные
+ * бронирования в нём не видны. Загрузка, которая могла не увидеть параллельную запись, в кэш
+ * не попадает. Проверка пересечений при бронировании и представления вещей читают бронирования
+ * из базы, а не из этого кэша.
+ */
+@Component
+public class BookingTimelineCache {
+    private static final String METRIC_PREFIX = "shareit.bookings.timeline.";
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final int maxItems;
+    private final long ttlMillis;
+    private final Map<Long, Entry> timelines;
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public BookingTimelineCache(BookingRepository bookingRepository,
+                                ArchivedBookingRepository archivedBookingRepository,
+                                @Value("${shareit.bookings.timeline.max-items:10000}") int maxItems,
+                                @Value("${shareit.bookings.timeline.ttl:30s}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.maxItems = maxItems;
+        this.ttlMillis = ttl.toMillis();
+        this.timelines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > BookingTimelineCache.this.maxItems) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = meterRegistry.counter(METRIC_PREFIX + "requests", "result", "hit");
+        this.misses = meterRegistry.counter(METRIC_PREFIX + "requests", "result", "miss");
+        this.evictions = meterRegistry.counter(METRIC_PREFIX + "evictions");
+        Gauge.builder(METRIC_PREFIX + "size", this, BookingTimelineCache::size).register(meterRegistry);
+    }
+
+    public Map<Long, ItemBookingTimeline> getAll(Collection<Long> itemIds) {
+        Map<Long, ItemBookingTimeline> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        long loadGeneration;
+        synchronized (this) {
+            for (Long itemId : itemIds) {
+                Entry entry = timelines.get(itemId);
+                if (entry != null && entry.expiresAt > now) {
+                    result.put(itemId, entry.timeline);
+                } else {
+                    missing.add(itemId);
+                }
+            }
+            loadGeneration = generation;
+        }
+        hits.increment(result.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        misses.increment(missing.size());
+        Map<Long, ItemBookingTimeline> loaded = load(missing);
+        if (maxItems > 0) {
+            synchronized (this) {
+                if (loadGeneration == generation) {
+                    loaded.forEach((itemId, timeline) -> timelines.put(itemId, new Entry(timeline, now + ttlMillis)));
+                }
+            }
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Таймлайны прямо из базы, минуя кэш.
+     */
+    public Map<Long, ItemBookingTimeline> load(Collection<Long> itemIds) {
+        Map<Long, List<BookingSlot>> slots = Stream.concat(bookingRepository.findSlotsByItemIdIn(itemIds).stream(),
+                        archivedBookingRepository.findSlotsByItemIdIn(itemIds).stream())
+                .collect(Collectors.groupingBy(BookingSlot::getItemId));
+        Map<Long, ItemBookingTimeline> loaded = new HashMap<>();
+        for (Long itemId : itemIds) {
+            loaded.put(itemId, new ItemBookingTimeline(slots.getOrDefault(itemId, List.of())));
+        }
+        return loaded;
+    }
+
+    public ItemBookingTimeline get(long itemId) {
+        return getAll(List.of(itemId)).get(itemId);
+    }
+
+    public void record(Booking booking) {
+        BookingSlot slot = BookingSlot.of(booking);
+        AfterCommit.run(() -> apply(slot));
+    }
+
+    public synchronized void evict(long itemId) {
+        generation++;
+        timelines.remove(itemId);
+    }
+
+    public synchronized void evictAll() {
+        generation++;
+        timelines.clear();
+    }
+
+    public synchronized int size() {
+        return timelines.size();
+    }
+
+    private void apply(BookingSlot slot) {
+        Entry entry;
+        synchronized (this) {
+            generation++;
+            entry = timelines.get(slot.getItemId());
+        }
+        if (entry != null) {
+            entry.timeline.put(slot);
+        }
+    }
+
+    private static final class Entry {
+        private final ItemBookingTimeline timeline;
+        private final long expiresAt;
+
+        private Entry(ItemBookingTimeline timeline, long expiresAt) {
+            this.timeline = timeline;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
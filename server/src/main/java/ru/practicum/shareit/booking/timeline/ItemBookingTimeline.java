@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking.timeline;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Бронирования одной вещи, упорядоченные по началу и по окончанию.
+ * Последнее, следующее бронирование и пересечение с подтверждёнными ищутся за O(log n).
+ */
+public class ItemBookingTimeline {
+    private static final Comparator<BookingSlot> BY_START = Comparator.comparing(BookingSlot::getStart)
+            .thenComparingLong(BookingSlot::getId);
+    private static final Comparator<BookingSlot> BY_END = Comparator.comparing(BookingSlot::getEnd)
+            .thenComparingLong(BookingSlot::getId);
+
+    private final Map<Long, BookingSlot> byId = new HashMap<>();
+    private final NavigableSet<BookingSlot> byStart = new TreeSet<>(BY_START);
+    private final NavigableSet<BookingSlot> byEnd = new TreeSet<>(BY_END);
+    private final NavigableSet<BookingSlot> approvedByStart = new TreeSet<>(BY_START);
+
+    public ItemBookingTimeline(Collection<BookingSlot> slots) {
+        slots.forEach(this::put);
+    }
+
+    public synchronized void put(BookingSlot slot) {
+        BookingSlot previous = byId.put(slot.getId(), slot);
+        if (previous != null) {
+            byStart.remove(previous);
+            byEnd.remove(previous);
+            approvedByStart.remove(previous);
+        }
+        byStart.add(slot);
+        byEnd.add(slot);
+        if (slot.getStatus() == BookingStatus.APPROVED) {
+            approvedByStart.add(slot);
+        }
+    }
+
+    public synchronized Optional<BookingSlot> last(LocalDateTime now) {
+        return Optional.ofNullable(byEnd.lower(probe(now, Long.MIN_VALUE)));
+    }
+
+    public synchronized Optional<BookingSlot> next(LocalDateTime now) {
+        return Optional.ofNullable(byStart.higher(probe(now, Long.MAX_VALUE)));
+    }
+
+    /**
+     * Ближайшее окончание среди бронирований, идущих в момент {@code now}.
+     */
+    public synchronized Optional<LocalDateTime> currentEnd(LocalDateTime now) {
+        return byEnd.tailSet(probe(now, Long.MAX_VALUE), false).stream()
+                .filter(slot -> !slot.getStart().isAfter(now))
+                .map(BookingSlot::getEnd)
+                .findFirst();
+    }
+
+    /**
+     * Подтверждённые бронирования одной вещи не пересекаются, поэтому достаточно проверить
+     * последнее из начавшихся раньше {@code end}.
+     */
+    public synchronized boolean overlapsApproved(LocalDateTime start, LocalDateTime end, long excludedBookingId) {
+        BookingSlot candidate = approvedByStart.lower(probe(end, Long.MIN_VALUE));
+        if (candidate != null && candidate.getId() == excludedBookingId) {
+            candidate = approvedByStart.lower(candidate);
+        }
+        return candidate != null && candidate.getEnd().isAfter(start);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    private static BookingSlot probe(LocalDateTime time, long id) {
+        return new BookingSlot(id, 0, 0, time, time, null);
+    }
+}
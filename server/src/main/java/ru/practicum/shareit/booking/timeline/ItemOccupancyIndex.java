@@ -0,0 +1,169 @@
+package ru.practicum.shareit.booking.timeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Занятость вещей по дням на {@code months-ahead} месяцев вперёд: для каждой вещи битовая маска дней,
+ * которые задевают подтверждённые или ожидающие бронирования. Если занят день строго внутри запрошенного
+ * окна, вещь точно занята; если только граничные дни, пересечение проверяется по самим бронированиям.
+ * Изменения применяются после фиксации транзакции; раз в час индекс перестраивается, подхватывая
+ * бронирования других экземпляров и сдвигая начало. Свободные по индексу вещи перед выдачей
+ * перепроверяются по базе ({@link #findBusy}).
+ */
+@Slf4j
+@Component
+public class ItemOccupancyIndex {
+    private static final Set<BookingStatus> OCCUPYING = EnumSet.of(BookingStatus.APPROVED, BookingStatus.WAITING);
+
+    private final BookingRepository bookingRepository;
+    private final int monthsAhead;
+    private final Map<Long, Map<Long, BookingSlot>> slots = new HashMap<>();
+    private final Map<Long, BitSet> days = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LocalDate origin;
+    private int horizon;
+
+    public ItemOccupancyIndex(BookingRepository bookingRepository,
+                              @Value("${shareit.bookings.occupancy.months-ahead:6}") int monthsAhead) {
+        this.bookingRepository = bookingRepository;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.bookings.occupancy.rebuild-cron:0 5 * * * *}")
+    public void rebuild() {
+        if (monthsAhead <= 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            origin = LocalDate.now();
+            horizon = (int) ChronoUnit.DAYS.between(origin, origin.plusMonths(monthsAhead));
+            slots.clear();
+            days.clear();
+            bookingRepository.findSlotsByStatusInAndOverlapping(OCCUPYING, origin.atStartOfDay(),
+                    origin.plusDays(horizon).atStartOfDay()).forEach(this::put);
+            log.info("Индекс занятости построен: {} вещей с бронированиями на {} дней вперёд.", days.size(), horizon);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Можно ли ответить по индексу: окно целиком лежит внутри горизонта.
+     */
+    public boolean covers(LocalDateTime start, LocalDateTime end) {
+        lock.readLock().lock();
+        try {
+            return origin != null && dayOf(start) >= 0 && dayOf(end) < horizon;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<Long> findFree(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end) {
+        Set<Long> free = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            int first = dayOf(start);
+            int last = dayOf(end);
+            for (Long itemId : itemIds) {
+                if (isFree(itemId, first, last, start, end)) {
+                    free.add(itemId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return free;
+    }
+
+    /**
+     * Вещи из {@code itemIds}, занятые в окне по данным базы: индекс не видит бронирований,
+     * записанных другими экземплярами после последней перестройки.
+     */
+    public Set<Long> findBusy(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end) {
+        if (itemIds.isEmpty()) {
+            return Set.of();
+        }
+        return bookingRepository.findItemIdsByStatusInAndOverlapping(itemIds, OCCUPYING, start, end);
+    }
+
+    public void record(Booking booking) {
+        BookingSlot slot = BookingSlot.of(booking);
+        AfterCommit.run(() -> apply(slot));
+    }
+
+    private boolean isFree(long itemId, int first, int last, LocalDateTime start, LocalDateTime end) {
+        BitSet occupied = days.get(itemId);
+        int next = occupied == null ? -1 : occupied.nextSetBit(first);
+        if (next == -1 || next > last) {
+            return true;
+        }
+        int inner = occupied.nextSetBit(first + 1);
+        if (inner != -1 && inner < last) {
+            return false;
+        }
+        return slots.get(itemId).values().stream()
+                .noneMatch(slot -> slot.getStart().isBefore(end) && slot.getEnd().isAfter(start));
+    }
+
+    private void apply(BookingSlot slot) {
+        lock.writeLock().lock();
+        try {
+            if (origin == null) {
+                return;
+            }
+            Map<Long, BookingSlot> itemSlots = slots.get(slot.getItemId());
+            if (itemSlots != null && itemSlots.remove(slot.getId()) != null) {
+                if (itemSlots.isEmpty()) {
+                    slots.remove(slot.getItemId());
+                    days.remove(slot.getItemId());
+                } else {
+                    days.put(slot.getItemId(), toDays(itemSlots.values()));
+                }
+            }
+            put(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(BookingSlot slot) {
+        if (!OCCUPYING.contains(slot.getStatus()) || dayOf(slot.getEnd()) < 0 || dayOf(slot.getStart()) >= horizon) {
+            return;
+        }
+        slots.computeIfAbsent(slot.getItemId(), itemId -> new HashMap<>()).put(slot.getId(), slot);
+        mark(days.computeIfAbsent(slot.getItemId(), itemId -> new BitSet(horizon)), slot);
+    }
+
+    private BitSet toDays(Collection<BookingSlot> itemSlots) {
+        BitSet occupied = new BitSet(horizon);
+        itemSlots.forEach(slot -> mark(occupied, slot));
+        return occupied;
+    }
+
+    private void mark(BitSet occupied, BookingSlot slot) {
+        occupied.set(Math.max(dayOf(slot.getStart()), 0), Math.min(dayOf(slot.getEnd()), horizon - 1) + 1);
+    }
+
+    private int dayOf(LocalDateTime time) {
+        return (int) ChronoUnit.DAYS.between(origin, time.toLocalDate());
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Ответ в формате NDJSON, который пишется в выходной поток по мере чтения записей из базы.
+ */
+@UtilityClass
+public class NdJsonResponse {
+    private static final int NEW_LINE = '\n';
+
+    public static <T> ResponseEntity<StreamingResponseBody> of(ObjectMapper objectMapper,
+                                                               Consumer<Consumer<T>> export) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> export.accept(value -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(value));
+                        outputStream.write(NEW_LINE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+    }
+}
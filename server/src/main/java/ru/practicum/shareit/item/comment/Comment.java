@@ -10,7 +10,7 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = @Index(name = "idx_comments_item_id_created", columnList = "item_id, created"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,10 +1,48 @@
 package ru.practicum.shareit.item.comment;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    List<Comment> getAllByItemId(long id);
+    @Query("select c from Comment c " +
+            "join fetch c.author " +
+            "where c.item.id = ?1 " +
+            "order by c.created desc, c.id desc")
+    List<Comment> findRecentByItemId(long itemId, Pageable pageable);
+
+    @Query("select c from Comment c " +
+            "join fetch c.author " +
+            "where c.item.id = ?1 and (c.created < ?2 or (c.created = ?2 and c.id < ?3)) " +
+            "order by c.created desc, c.id desc")
+    List<Comment> findAllByItemIdBefore(long itemId, LocalDateTime created, long id, Pageable pageable);
+
+    /**
+     * Последние {@code limit} отзывов каждой вещи: номер отзыва внутри вещи считает оконная функция,
+     * затем отзывы с авторами читаются одним запросом.
+     */
+    default List<Comment> findRecentByItemIdIn(Collection<Long> itemIds, long limit) {
+        List<Long> ids = findRecentIdsByItemIdIn(itemIds, limit).stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        return ids.isEmpty() ? List.of() : findAllWithAuthorByIdIn(ids);
+    }
+
+    @Query(value = "select r.id from (" +
+            "select c.id, row_number() over (partition by c.item_id order by c.created desc, c.id desc) as rn " +
+            "from comments c where c.item_id in ?1) r " +
+            "where r.rn <= ?2", nativeQuery = true)
+    List<Number> findRecentIdsByItemIdIn(Collection<Long> itemIds, long limit);
+
+    @Query("select c from Comment c " +
+            "join fetch c.author " +
+            "where c.id in ?1 " +
+            "order by c.created desc, c.id desc")
+    List<Comment> findAllWithAuthorByIdIn(Collection<Long> ids);
 }
@@ -1,14 +1,33 @@
 package ru.practicum.shareit.item.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.export.NdJsonResponse;
 import ru.practicum.shareit.item.comment.CommentDtoInput;
 import ru.practicum.shareit.item.comment.CommentDtoOutput;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
+import ru.practicum.shareit.item.service.ItemExportService;
+import ru.practicum.shareit.item.service.ItemImportService;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * TODO Sprint add-controllers.
@@ -18,12 +37,31 @@ import java.util.List;
 @RequestMapping("/items")
 public class ItemController {
     private final ItemService itemService;
+    private final ItemImportService itemImportService;
+    private final ItemExportService itemExportService;
+    private final UserExistenceCache userExistenceCache;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto create(@RequestBody ItemDto itemDto, @RequestHeader("X-Sharer-User-Id") long userId) {
         return itemService.create(itemDto, userId);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<ItemImportResultDto> importItems(@RequestBody List<ItemDto> items,
+                                                 @RequestHeader("X-Sharer-User-Id") long userId) {
+        return itemImportService.importItems(items.iterator(), userId);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<ItemImportResultDto> importItemsStream(HttpServletRequest request,
+                                                       @RequestHeader("X-Sharer-User-Id") long userId)
+            throws IOException {
+        return itemImportService.importItems(
+                new NdJsonItemIterator(new BufferedReader(
+                        new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)), objectMapper), userId);
+    }
+
     @PatchMapping("/{id}")
     public ItemDto update(@RequestBody ItemDto itemDto, @PathVariable long id,
                           @RequestHeader("X-Sharer-User-Id") long userId) {
@@ -35,11 +73,21 @@ public class ItemController {
         return itemService.getById(id, ownerId);
     }
 
+    @GetMapping("/{id}/request-matches")
+    public List<ItemRequestDtoOutput> getRequestMatches(@PathVariable long id,
+                                                        @RequestHeader("X-Sharer-User-Id") long userId) {
+        return itemService.getRequestMatches(id, userId);
+    }
+
     @GetMapping
-    public List<ItemOutputDto> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
-                                      @RequestParam(required = false, defaultValue = "0") int from,
-                                      @RequestParam(required = false, defaultValue = "20") int size) {
-        return itemService.getAll(userId, from, size);
+    public ResponseEntity<List<ItemOutputDto>> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                      @RequestParam(required = false, defaultValue = "0") int from,
+                                                      @RequestParam(required = false, defaultValue = "20") int size,
+                                                      @RequestParam(required = false) String after) {
+        List<ItemOutputDto> items = after == null
+                ? itemService.getAll(userId, from, size)
+                : itemService.getAllAfter(userId, Cursor.decode(after), size);
+        return Cursor.toResponse(items, size, item -> Cursor.of(item.getId()));
     }
 
     @GetMapping("/search")
@@ -49,6 +97,40 @@ public class ItemController {
         return itemService.search(text, from, size);
     }
 
+    @GetMapping("/search/available")
+    public List<ItemDto> searchAvailable(@RequestParam(required = false) String text,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                         LocalDateTime start,
+                                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                         LocalDateTime end,
+                                         @RequestParam(required = false, defaultValue = "0") int from,
+                                         @RequestParam(required = false, defaultValue = "20") int size) {
+        return itemService.searchAvailable(text, start, end, from, size);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader("X-Sharer-User-Id") long userId) {
+        userExistenceCache.throwIfNotFound(userId);
+        return NdJsonResponse.of(objectMapper,
+                (Consumer<ItemDto> consumer) -> itemExportService.exportItems(userId, consumer));
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam(required = false) String prefix,
+                                @RequestParam(required = false, defaultValue = "10") int limit) {
+        return itemService.suggest(prefix, limit);
+    }
+
+    @GetMapping("/{id}/comments")
+    public ResponseEntity<List<CommentDtoOutput>> getComments(@PathVariable(name = "id") long itemId,
+                                                              @RequestParam(required = false, defaultValue = "20")
+                                                              int size,
+                                                              @RequestParam(required = false) String after) {
+        List<CommentDtoOutput> comments = itemService.getComments(itemId,
+                after == null ? null : Cursor.decodeWithTimestamp(after), size);
+        return Cursor.toResponse(comments, size, comment -> Cursor.of(comment.getCreated(), comment.getId()));
+    }
+
     @PostMapping("/{id}/comment")
     public CommentDtoOutput addComment(@PathVariable(name = "id") long itemId,
                                        @RequestHeader("X-Sharer-User-Id") long userId,
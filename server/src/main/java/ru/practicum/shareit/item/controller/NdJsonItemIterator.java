@@ -0,0 +1,59 @@
+package ru.practicum.shareit.item.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Читает вещи из NDJSON построчно; строка с некорректным JSON даёт ValidationException
+ * из next(), не прерывая чтение следующих строк.
+ */
+class NdJsonItemIterator implements Iterator<ItemDto> {
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private String line;
+
+    NdJsonItemIterator(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (line == null) {
+                String next = reader.readLine();
+                if (next == null) {
+                    return false;
+                }
+                if (!next.isBlank()) {
+                    line = next;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ItemDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String current = line;
+        line = null;
+        try {
+            return objectMapper.readValue(current, ItemDto.class);
+        } catch (JsonProcessingException e) {
+            throw new ValidationException("Некорректная строка NDJSON: " + e.getOriginalMessage());
+        }
+    }
+}
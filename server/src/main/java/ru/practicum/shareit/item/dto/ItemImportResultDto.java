@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Value;
+
+@Value
+public class ItemImportResultDto {
+    int index;
+    long id;
+    String error;
+
+    public static ItemImportResultDto imported(int index, long id) {
+        return new ItemImportResultDto(index, id, null);
+    }
+
+    public static ItemImportResultDto failed(int index, String error) {
+        return new ItemImportResultDto(index, 0, error);
+    }
+}
@@ -16,6 +16,7 @@ public class ItemOutputDto {
     private Boolean available;
     private BookingDtoForItem lastBooking;
     private BookingDtoForItem nextBooking;
+    private long commentCount;
     private List<CommentDtoOutput> comments;
 
     public ItemOutputDto(Long id, String name, String description, Boolean available) {
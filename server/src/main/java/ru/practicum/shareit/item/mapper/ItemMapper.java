@@ -1,10 +1,12 @@
 package ru.practicum.shareit.item.mapper;
 
 import lombok.experimental.UtilityClass;
+import ru.practicum.shareit.booking.dto.BookingDtoForItem;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoForBooking;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.view.ItemView;
 
 @UtilityClass
 public class ItemMapper {
@@ -37,11 +39,35 @@ public class ItemMapper {
     }
 
     public static ItemOutputDto toItemDtoOutput(Item item) {
-        return new ItemOutputDto(
+        ItemOutputDto itemOutputDto = new ItemOutputDto(
                 item.getId(),
                 item.getName(),
                 item.getDescription(),
                 item.getAvailable()
         );
+        itemOutputDto.setCommentCount(item.getCommentCount());
+        return itemOutputDto;
+    }
+
+    public static ItemOutputDto toItemDtoOutput(ItemView itemView, long userId) {
+        ItemOutputDto itemOutputDto = new ItemOutputDto(
+                itemView.getItemId(),
+                itemView.getName(),
+                itemView.getDescription(),
+                itemView.getAvailable()
+        );
+        itemOutputDto.setCommentCount(itemView.getCommentCount());
+        itemOutputDto.setComments(itemView.getComments());
+        if (itemView.getOwnerId() == userId) {
+            if (itemView.getLastBookingId() != null) {
+                itemOutputDto.setLastBooking(
+                        new BookingDtoForItem(itemView.getLastBookingId(), itemView.getLastBookerId()));
+            }
+            if (itemView.getNextBookingId() != null) {
+                itemOutputDto.setNextBooking(
+                        new BookingDtoForItem(itemView.getNextBookingId(), itemView.getNextBookerId()));
+            }
+        }
+        return itemOutputDto;
     }
 }
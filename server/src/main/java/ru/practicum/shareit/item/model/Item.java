@@ -15,10 +15,13 @@ import javax.persistence.*;
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "items")
+@Table(name = "items", indexes = {
+        @Index(name = "idx_items_owner_id", columnList = "owner_id, id"),
+        @Index(name = "idx_items_request_id", columnList = "requests_id")})
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     @Column
     private long id;
     @Column
@@ -33,6 +36,11 @@ public class Item {
     @ManyToOne
     @JoinColumn(name = "requests_id", referencedColumnName = "id")
     private ItemRequest request;
+    @Column(name = "comment_count", nullable = false, updatable = false)
+    private long commentCount;
+    @Version
+    @Column(nullable = false)
+    private long version;
 
     public Item(long id, String name, String description, Boolean available, User owner, ItemRequest request) {
         this.id = id;
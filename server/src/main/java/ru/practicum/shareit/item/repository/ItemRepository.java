@@ -2,20 +2,89 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * Читает вещи без блокировки и при фиксации транзакции увеличивает их версию. Две транзакции,
+     * затронувшие одну вещь, не зафиксируются обе: проигравшая получает конфликт версий.
+     * Версии обновляются в порядке id, поэтому пакетные операции не взаимоблокируются.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select i from Item i where i.id in ?1 order by i.id")
+    List<Item> touchAllByIdIn(Collection<Long> itemIds);
 
     @Query(" select i from Item i " +
-            "where upper(i.name) like upper(concat('%', ?1, '%')) " +
-            "or upper(i.description) like upper(concat('%', ?1, '%'))" +
-            "and (i.available) = true")
+            "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            "or upper(i.description) like upper(concat('%', ?1, '%'))) " +
+            "and (i.available) = true " +
+            "order by i.id")
     List<Item> search(String text, Pageable pageable);
 
-    List<Item> findAllByOwnerId(long ownerId);
+    @Query(value = "select * from items i " +
+            "where i.available = true " +
+            "and (to_tsvector('simple', i.name || ' ' || i.description) @@ plainto_tsquery('simple', ?1) " +
+            "or i.name ilike concat('%', ?1, '%') " +
+            "or i.description ilike concat('%', ?1, '%')) " +
+            "order by ts_rank(to_tsvector('simple', i.name || ' ' || i.description), " +
+            "plainto_tsquery('simple', ?1)) desc, similarity(i.name, ?1) desc, i.id",
+            nativeQuery = true)
+    List<Item> searchFullText(String text, Pageable pageable);
+
+    @Query(" select i from Item i " +
+            "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            "or upper(i.description) like upper(concat('%', ?1, '%'))) " +
+            "and (i.available) = true " +
+            "and not exists (select b.id from Booking b where b.item = i " +
+            "and b.status in ('APPROVED', 'WAITING') and b.start < ?3 and b.end > ?2) " +
+            "order by i.id")
+    List<Item> searchAvailable(String text, LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    boolean existsByOwnerId(long ownerId);
+
+    @Query("select i from Item i " +
+            "join fetch i.owner " +
+            "left join fetch i.request " +
+            "where i.owner.id = ?1 " +
+            "order by i.id")
+    List<Item> findAllByOwnerIdOrderById(long ownerId, Pageable pageable);
+
+    @Query("select i from Item i " +
+            "join fetch i.owner " +
+            "left join fetch i.request " +
+            "where i.owner.id = ?1 and i.id > ?2 " +
+            "order by i.id")
+    List<Item> findAllByOwnerIdAfter(long ownerId, long id, Pageable pageable);
+
+    @Query("select i from Item i where i.request.id in ?1 order by i.id")
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select i from Item i " +
+            "join fetch i.owner " +
+            "left join fetch i.request " +
+            "where i.owner.id = ?1 " +
+            "order by i.id")
+    Stream<Item> streamAllByOwnerId(long ownerId);
 
-    List<Item> findAllByRequestId(long requestId);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Item i set i.commentCount = i.commentCount + 1 where i.id = ?1")
+    void incrementCommentCount(long itemId);
 }
@@ -0,0 +1,174 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов поиска вещей по нормализованному тексту запроса и странице.
+ * Записи вытесняются по TTL и по размеру (LRU) и сбрасываются при изменении подходящих вещей.
+ */
+@Component
+public class ItemSearchCache {
+    private static final String METRIC_PREFIX = "shareit.search.cache.";
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<Key, Entry> entries;
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter expirations;
+    private final Counter invalidations;
+
+    public ItemSearchCache(@Value("${shareit.search.cache.max-size:1000}") int maxSize,
+                           @Value("${shareit.search.cache.ttl:60s}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ItemSearchCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = meterRegistry.counter(METRIC_PREFIX + "requests", "result", "hit");
+        this.misses = meterRegistry.counter(METRIC_PREFIX + "requests", "result", "miss");
+        this.evictions = meterRegistry.counter(METRIC_PREFIX + "evictions", "cause", "size");
+        this.expirations = meterRegistry.counter(METRIC_PREFIX + "evictions", "cause", "expired");
+        this.invalidations = meterRegistry.counter(METRIC_PREFIX + "evictions", "cause", "invalidated");
+        Gauge.builder(METRIC_PREFIX + "size", this, ItemSearchCache::size).register(meterRegistry);
+    }
+
+    public List<ItemDto> get(String text, int from, int size, Supplier<List<ItemDto>> loader) {
+        if (maxSize <= 0) {
+            return loader.get();
+        }
+        Key key = new Key(normalize(text), from / size, size);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hits.increment();
+                    return entry.items;
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+        List<ItemDto> items = List.copyOf(loader.get());
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                entries.put(key, new Entry(items, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return items;
+    }
+
+    public void invalidate(ItemDto before, ItemDto after) {
+        if (maxSize <= 0 || !affectsSearch(before, after)) {
+            return;
+        }
+        List<String> texts = new ArrayList<>();
+        for (ItemDto itemDto : Arrays.asList(before, after)) {
+            if (itemDto != null && Boolean.TRUE.equals(itemDto.getAvailable())) {
+                texts.add(normalize(itemDto.getName()) + " " + normalize(itemDto.getDescription()));
+            }
+        }
+        if (texts.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            generation++;
+            Iterator<Key> iterator = entries.keySet().iterator();
+            while (iterator.hasNext()) {
+                Key key = iterator.next();
+                if (texts.stream().anyMatch(text -> key.matches(text))) {
+                    iterator.remove();
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.increment(entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static boolean affectsSearch(ItemDto before, ItemDto after) {
+        return before == null || after == null
+                || !Objects.equals(before.getName(), after.getName())
+                || !Objects.equals(before.getDescription(), after.getDescription())
+                || !Objects.equals(before.getAvailable(), after.getAvailable());
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static class Key {
+        private final String text;
+        private final int page;
+        private final int size;
+
+        Key(String text, int page, int size) {
+            this.text = text;
+            this.page = page;
+            this.size = size;
+        }
+
+        boolean matches(String itemText) {
+            if (itemText.contains(text)) {
+                return true;
+            }
+            return Arrays.stream(text.split("\\s+"))
+                    .filter(token -> !token.isEmpty())
+                    .allMatch(itemText::contains);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return page == key.page && size == key.size && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, page, size);
+        }
+    }
+
+    private static class Entry {
+        private final List<ItemDto> items;
+        private final long expiresAt;
+
+        Entry(List<ItemDto> items, long expiresAt) {
+            this.items = items;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс доступных вещей по триграммам слов из названия и описания.
+ * Поиск по подстроке без учёта регистра, как в ItemRepository.search.
+ * Полностью индекс строится при старте и затем по расписанию, чтобы подхватить вещи, добавленные
+ * и изменённые другими экземплярами.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.search.mode:LIKE}") SearchMode searchMode) {
+        this.itemRepository = itemRepository;
+        this.enabled = searchMode == SearchMode.INDEX;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.search.index.rebuild-cron:0 */10 * * * *}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            items.clear();
+            postings.clear();
+            Page<Item> page;
+            int pageNumber = 0;
+            do {
+                page = itemRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("id")));
+                page.forEach(item -> add(ItemMapper.toItemDto(item)));
+            } while (page.hasNext());
+            log.info("Поисковый индекс вещей построен, проиндексировано {} вещей.", items.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(ItemDto itemDto) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            remove(itemDto.getId());
+            if (Boolean.TRUE.equals(itemDto.getAvailable())) {
+                add(itemDto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ItemDto> search(String text, int from, int size) {
+        String query = normalize(text);
+        lock.readLock().lock();
+        try {
+            return candidates(query).stream()
+                    .map(items::get)
+                    .filter(item -> item.matches(query))
+                    .map(IndexedItem::getItemDto)
+                    .sorted(Comparator.comparingLong(ItemDto::getId))
+                    .skip((long) (from / size) * size)
+                    .limit(size)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Collection<Long> candidates(String query) {
+        List<Set<Long>> postingLists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            postingLists.add(ids);
+        }
+        if (postingLists.isEmpty()) {
+            return items.keySet();
+        }
+        postingLists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> smallest = postingLists.get(0);
+        List<Set<Long>> others = postingLists.subList(1, postingLists.size());
+        return smallest.stream()
+                .filter(id -> others.stream().allMatch(ids -> ids.contains(id)))
+                .collect(Collectors.toList());
+    }
+
+    private void add(ItemDto itemDto) {
+        if (!Boolean.TRUE.equals(itemDto.getAvailable())) {
+            return;
+        }
+        IndexedItem item = new IndexedItem(itemDto);
+        items.put(itemDto.getId(), item);
+        for (String gram : item.getGrams()) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(itemDto.getId());
+        }
+    }
+
+    private void remove(long itemId) {
+        IndexedItem item = items.remove(itemId);
+        if (item == null) {
+            return;
+        }
+        for (String gram : item.getGrams()) {
+            Set<Long> ids = postings.get(gram);
+            ids.remove(itemId);
+            if (ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (String token : normalized.split("[^\\p{L}\\p{N}]+")) {
+            for (int i = 0; i + GRAM_LENGTH <= token.length(); i++) {
+                grams.add(token.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return grams;
+    }
+
+    private static class IndexedItem {
+        private final ItemDto itemDto;
+        private final String name;
+        private final String description;
+
+        IndexedItem(ItemDto itemDto) {
+            this.itemDto = itemDto;
+            this.name = normalize(itemDto.getName());
+            this.description = normalize(itemDto.getDescription());
+        }
+
+        ItemDto getItemDto() {
+            return itemDto;
+        }
+
+        Set<String> getGrams() {
+            Set<String> grams = grams(name);
+            grams.addAll(grams(description));
+            return grams;
+        }
+
+        boolean matches(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Префиксное дерево названий доступных вещей для автодополнения.
+ * Подсказки возвращаются в алфавитном порядке, одинаковые названия — один раз.
+ * Полностью дерево строится при старте и затем по расписанию, чтобы подхватить названия, изменённые
+ * другими экземплярами.
+ */
+@Slf4j
+@Component
+public class ItemSuggestIndex {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final Node root = new Node();
+    private final Map<Long, String> names = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemSuggestIndex(ItemRepository itemRepository) {
+        this.itemRepository = itemRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.search.suggest.rebuild-cron:0 */10 * * * *}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            root.children.clear();
+            root.names.clear();
+            Page<Item> page;
+            int pageNumber = 0;
+            do {
+                page = itemRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("id")));
+                page.forEach(item -> add(ItemMapper.toItemDto(item)));
+            } while (page.hasNext());
+            log.info("Индекс подсказок построен, проиндексировано {} названий вещей.", names.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(ItemDto itemDto) {
+        lock.writeLock().lock();
+        try {
+            remove(itemDto.getId());
+            add(itemDto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<String> suggestions = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return suggestions;
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node != null) {
+                collect(node, suggestions, limit);
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(Node node, List<String> suggestions, int limit) {
+        for (String name : node.names.keySet()) {
+            if (suggestions.size() >= limit) {
+                return;
+            }
+            suggestions.add(name);
+        }
+        for (Node child : node.children.values()) {
+            if (suggestions.size() >= limit) {
+                return;
+            }
+            collect(child, suggestions, limit);
+        }
+    }
+
+    private void add(ItemDto itemDto) {
+        String key = normalize(itemDto.getName());
+        if (!Boolean.TRUE.equals(itemDto.getAvailable()) || key.isEmpty()) {
+            return;
+        }
+        String name = itemDto.getName().trim();
+        names.put(itemDto.getId(), name);
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), character -> new Node());
+        }
+        node.names.merge(name, 1, Integer::sum);
+    }
+
+    private void remove(long itemId) {
+        String name = names.remove(itemId);
+        if (name == null) {
+            return;
+        }
+        String key = normalize(name);
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            path.push(node);
+            node = node.children.get(key.charAt(i));
+        }
+        node.names.computeIfPresent(name, (existing, count) -> count > 1 ? count - 1 : null);
+        for (int i = key.length() - 1; i >= 0 && node.isEmpty(); i--) {
+            Node parent = path.pop();
+            parent.children.remove(key.charAt(i));
+            node = parent;
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Node {
+        private final NavigableMap<Character, Node> children = new TreeMap<>();
+        private final SortedMap<String, Integer> names = new TreeMap<>();
+
+        boolean isEmpty() {
+            return children.isEmpty() && names.isEmpty();
+        }
+    }
+}
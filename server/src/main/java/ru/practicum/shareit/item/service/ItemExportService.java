@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.function.Consumer;
+
+public interface ItemExportService {
+
+    void exportItems(long userId, Consumer<ItemDto> consumer);
+}
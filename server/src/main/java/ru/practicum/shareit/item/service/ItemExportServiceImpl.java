@@ -0,0 +1,38 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemExportServiceImpl implements ItemExportService {
+    private final ItemRepository itemRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportItems(long userId, Consumer<ItemDto> consumer) {
+        long exported = 0;
+        try (Stream<Item> items = itemRepository.streamAllByOwnerId(userId)) {
+            for (Item item : (Iterable<Item>) items::iterator) {
+                consumer.accept(ItemMapper.toItemDto(item));
+                entityManager.detach(item);
+                if (++exported % ItemRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        log.info("Выгружено {} вещей пользователя {}.", exported, userId);
+    }
+}
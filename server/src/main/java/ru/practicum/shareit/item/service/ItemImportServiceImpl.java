@@ -0,0 +1,164 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSuggestIndex;
+import ru.practicum.shareit.item.view.ItemViewService;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.request.matching.ItemRequestMatchIndex;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.transaction.AfterCommit;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemImportServiceImpl implements ItemImportService {
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemSuggestIndex itemSuggestIndex;
+    private final ItemRequestMatchIndex itemRequestMatchIndex;
+    private final ItemRequestFeed itemRequestFeed;
+    private final ItemViewService itemViewService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${shareit.items.import.batch-size:50}")
+    private int batchSize = 50;
+
+    @Override
+    public List<ItemImportResultDto> importItems(Iterator<ItemDto> items, long userId) {
+        userExistenceCache.throwIfNotFound(userId);
+        User owner = userRepository.getReferenceById(userId);
+        List<ItemImportResultDto> results = new ArrayList<>();
+        Map<Integer, ItemDto> batch = new LinkedHashMap<>();
+        int index = 0;
+        while (items.hasNext()) {
+            int rowIndex = index++;
+            ItemDto itemDto;
+            try {
+                itemDto = items.next();
+            } catch (ValidationException e) {
+                results.add(ItemImportResultDto.failed(rowIndex, e.getMessage()));
+                continue;
+            }
+            String error = validate(itemDto);
+            if (error != null) {
+                results.add(ItemImportResultDto.failed(rowIndex, error));
+                continue;
+            }
+            batch.put(rowIndex, itemDto);
+            if (batch.size() == batchSize) {
+                results.addAll(saveBatch(batch, owner));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            results.addAll(saveBatch(batch, owner));
+        }
+        results.sort(Comparator.comparingInt(ItemImportResultDto::getIndex));
+        log.info("Импорт вещей пользователя {}: обработано {} строк.", userId, results.size());
+        return results;
+    }
+
+    private List<ItemImportResultDto> saveBatch(Map<Integer, ItemDto> batch, User owner) {
+        try {
+            return transactionTemplate.execute(status -> insert(batch, owner));
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить пакет вещей, сохраняем построчно: " + e.getMessage());
+        }
+        List<ItemImportResultDto> results = new ArrayList<>();
+        batch.forEach((rowIndex, itemDto) -> {
+            try {
+                results.addAll(transactionTemplate.execute(status -> insert(Map.of(rowIndex, itemDto), owner)));
+            } catch (RuntimeException e) {
+                results.add(ItemImportResultDto.failed(rowIndex, e.getMessage()));
+            }
+        });
+        return results;
+    }
+
+    private List<ItemImportResultDto> insert(Map<Integer, ItemDto> batch, User owner) {
+        Set<Long> requestIds = batch.values().stream()
+                .map(ItemDto::getRequestId)
+                .filter(requestId -> requestId != 0)
+                .collect(Collectors.toSet());
+        Set<Long> existingRequestIds = requestIds.isEmpty() ? Set.of()
+                : itemRequestRepository.findExistingIds(requestIds);
+        Map<Integer, Item> items = new LinkedHashMap<>();
+        batch.forEach((rowIndex, itemDto) -> {
+            Item item = ItemMapper.toItem(itemDto);
+            item.setId(0);
+            item.setOwner(owner);
+            if (existingRequestIds.contains(itemDto.getRequestId())) {
+                item.setRequest(entityManager.getReference(ItemRequest.class, itemDto.getRequestId()));
+            }
+            items.put(rowIndex, item);
+        });
+        itemRepository.saveAll(items.values());
+        entityManager.flush();
+        entityManager.clear();
+        List<ItemImportResultDto> results = new ArrayList<>();
+        List<ItemDto> savedItems = new ArrayList<>();
+        items.forEach((rowIndex, item) -> {
+            savedItems.add(ItemMapper.toItemDto(item));
+            results.add(ItemImportResultDto.imported(rowIndex, item.getId()));
+        });
+        afterInsert(savedItems);
+        return results;
+    }
+
+    /**
+     * Индексы, кэш поиска и лента запросов меняются только после фиксации пакета: если пакет
+     * откатился и сохраняется построчно, вещи из неудачной попытки в них не остаются.
+     */
+    private void afterInsert(List<ItemDto> savedItems) {
+        AfterCommit.run(() -> {
+            savedItems.forEach(savedItem -> {
+                itemSearchIndex.index(savedItem);
+                itemSuggestIndex.index(savedItem);
+                if (savedItem.getRequestId() != 0) {
+                    itemRequestMatchIndex.close(savedItem.getRequestId());
+                    itemRequestFeed.putItem(savedItem);
+                }
+            });
+            itemSearchCache.invalidateAll();
+        });
+        itemViewService.refreshAll(savedItems.stream().map(ItemDto::getId).collect(Collectors.toList()));
+    }
+
+    private String validate(ItemDto itemDto) {
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            return "Название вещи не может быть пустым.";
+        }
+        if (itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
+            return "Описание вещи не может быть пустым.";
+        }
+        if (itemDto.getAvailable() == null) {
+            return "Не указана доступность вещи.";
+        }
+        return null;
+    }
+}
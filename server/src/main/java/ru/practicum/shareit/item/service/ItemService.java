@@ -4,7 +4,10 @@ import ru.practicum.shareit.item.comment.CommentDtoInput;
 import ru.practicum.shareit.item.comment.CommentDtoOutput;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -13,11 +16,21 @@ public interface ItemService {
 
     ItemOutputDto getById(long id, long ownerId);
 
+    List<ItemRequestDtoOutput> getRequestMatches(long itemId, long userId);
+
     List<ItemOutputDto> getAll(long userId, int from, int size);
 
+    List<ItemOutputDto> getAllAfter(long userId, Cursor after, int size);
+
     ItemDto update(ItemDto itemDto, long itemId, long userId);
 
     List<ItemDto> search(String text, int from, int size);
 
+    List<ItemDto> searchAvailable(String text, LocalDateTime start, LocalDateTime end, int from, int size);
+
+    List<String> suggest(String prefix, int limit);
+
+    List<CommentDtoOutput> getComments(long itemId, Cursor after, int size);
+
     CommentDtoOutput addComment(long itemId, long userId, CommentDtoInput text);
 }
@@ -2,11 +2,16 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.booking.timeline.ItemBookingTimeline;
+import ru.practicum.shareit.booking.timeline.ItemOccupancyIndex;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.comment.*;
@@ -15,27 +20,67 @@ import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSuggestIndex;
+import ru.practicum.shareit.item.search.SearchMode;
+import ru.practicum.shareit.item.view.ItemViewService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.matching.ItemRequestMatchIndex;
+import ru.practicum.shareit.request.model.ItemRequestMatch;
+import ru.practicum.shareit.request.repository.ItemRequestMatchRepository;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.retry.OptimisticRetry;
+import ru.practicum.shareit.transaction.AfterCommit;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final int AVAILABILITY_CHUNK_SIZE = 1000;
 
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemRequestMatchRepository itemRequestMatchRepository;
+    private final ItemRequestMatchIndex itemRequestMatchIndex;
+    private final ItemRequestFeed itemRequestFeed;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
     private final CommentRepository commentRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemSuggestIndex itemSuggestIndex;
+    private final ItemViewService itemViewService;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final ItemOccupancyIndex itemOccupancyIndex;
+    private final OptimisticRetry optimisticRetry;
+
+    @Value("${shareit.search.mode:LIKE}")
+    private SearchMode searchMode = SearchMode.LIKE;
+
+    @Value("${shareit.items.comments.recent:10}")
+    private int recentComments = 10;
+
+    @Value("${shareit.requests.matching.max-matches:10}")
+    private int maxRequestMatches = 10;
 
     @Override
+    @Transactional
     public ItemDto create(ItemDto itemDto, long userId) {
         Item item = ItemMapper.toItem(itemDto);
         item.setOwner(getUser(userId));
@@ -43,18 +88,37 @@ public class ItemServiceImpl implements ItemService {
         if (item.getRequest() != null) {
             itemRequestRepository.save(item.getRequest());
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item saved = itemRepository.save(item);
+        if (saved.getRequest() != null) {
+            itemRequestMatchIndex.close(saved.getRequest().getId());
+        } else if (Boolean.TRUE.equals(saved.getAvailable())) {
+            saveRequestMatches(saved, userId);
+        }
+        ItemDto savedItem = ItemMapper.toItemDto(saved);
+        itemViewService.refresh(savedItem.getId());
+        AfterCommit.run(() -> {
+            itemSearchIndex.index(savedItem);
+            itemSuggestIndex.index(savedItem);
+            itemSearchCache.invalidate(null, savedItem);
+            itemRequestFeed.putItem(savedItem);
+        });
+        return savedItem;
     }
 
     @Override
     public ItemDto update(ItemDto itemDto, long itemId, long userId) {
+        return optimisticRetry.execute(() -> updateOnce(itemDto, itemId, userId));
+    }
+
+    private ItemDto updateOnce(ItemDto itemDto, long itemId, long userId) {
         Item item = ItemMapper.toItem(itemDto);
-        throwIfUserNotFound(userId);
+        userExistenceCache.throwIfNotFound(userId);
         if (getItem(itemId).getOwner().getId() != userId || userId == 0) {
             log.error("Обновить информацию о вещи может только её владелец.");
             throw new NotFoundException("Обновить информацию о вещи может только её владелец.");
         }
         Item itemUpdate = getItem(itemId);
+        ItemDto itemBefore = ItemMapper.toItemDto(itemUpdate);
         if (item.getAvailable() != null) {
             itemUpdate.setAvailable(item.getAvailable());
         }
@@ -64,36 +128,61 @@ public class ItemServiceImpl implements ItemService {
         if (item.getName() != null) {
             itemUpdate.setName(item.getName());
         }
-        return ItemMapper.toItemDto(itemRepository.save(itemUpdate));
+        ItemDto updatedItem = ItemMapper.toItemDto(itemRepository.saveAndFlush(itemUpdate));
+        itemViewService.refresh(itemId);
+        AfterCommit.run(() -> {
+            itemSearchIndex.index(updatedItem);
+            itemSuggestIndex.index(updatedItem);
+            itemSearchCache.invalidate(itemBefore, updatedItem);
+            itemRequestFeed.putItem(updatedItem);
+        });
+        return updatedItem;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ItemOutputDto getById(long itemId, long ownerId) {
-        Item item = getItem(itemId);
-        ItemOutputDto itemOutputDto = ItemMapper.toItemDtoOutput(item);
-        if (item.getOwner().getId() == ownerId) {
-            Booking bookingLast = bookingRepository.findFirstByItemIdAndEndBefore(itemId, LocalDateTime.now());
-            Booking bookingNext = bookingRepository.findFirstByItemIdAndStartAfter(itemId, LocalDateTime.now());
-            if (bookingLast != null) {
-                itemOutputDto.setLastBooking(BookingMapper.toBookingDtoForItem(bookingLast));
-            }
-            if (bookingNext != null) {
-                itemOutputDto.setNextBooking(BookingMapper.toBookingDtoForItem(bookingNext));
-            }
+        return ItemMapper.toItemDtoOutput(itemViewService.get(itemId), ownerId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemRequestDtoOutput> getRequestMatches(long itemId, long userId) {
+        userExistenceCache.throwIfNotFound(userId);
+        if (getItem(itemId).getOwner().getId() != userId) {
+            log.error("Подходящие запросы для вещи может смотреть только её владелец.");
+            throw new NotFoundException("Подходящие запросы для вещи может смотреть только её владелец.");
         }
-        itemOutputDto.setComments(commentRepository.getAllByItemId(itemId).stream()
-                .map(CommentMapper::commentDtoOutput).collect(Collectors.toList()));
-        return itemOutputDto;
+        return itemRequestMatchRepository.findRequestsByItemId(itemId).stream()
+                .map(ItemRequestMapper::toItemRequestDtoOutput)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CommentDtoOutput> getComments(long itemId, Cursor after, int size) {
+        getItem(itemId);
+        List<Comment> comments = after == null
+                ? commentRepository.findRecentByItemId(itemId, PageRequest.of(0, size))
+                : commentRepository.findAllByItemIdBefore(itemId, after.getTimestamp(), after.getId(),
+                PageRequest.of(0, size));
+        return comments.stream().map(CommentMapper::commentDtoOutput).collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ItemOutputDto> getAll(long userId, int from, int size) {
-        throwIfUserNotFound(userId);
-        return itemRepository.findAll(PageRequest.of(from / size, size)).stream()
-                .filter(item -> item.getOwner().getId() == userId).map(item -> getById(item.getId(),
-                        item.getOwner().getId()))
-                .sorted((o1, o2) -> (int) (o1.getId() - o2.getId()))
-                .collect(Collectors.toList());
+        userExistenceCache.throwIfNotFound(userId);
+        return toItemDtoOutputWithBookingsAndComments(
+                itemRepository.findAllByOwnerIdOrderById(userId, PageRequest.of(from / size, size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemOutputDto> getAllAfter(long userId, Cursor after, int size) {
+        userExistenceCache.throwIfNotFound(userId);
+        return toItemDtoOutputWithBookingsAndComments(
+                itemRepository.findAllByOwnerIdAfter(userId, after.getId(), PageRequest.of(0, size)));
     }
 
     @Override
@@ -101,15 +190,70 @@ public class ItemServiceImpl implements ItemService {
         if (text.isEmpty() || text.isBlank()) {
             return new ArrayList<>();
         }
-        return itemRepository.search(text, PageRequest.of(from / size, size))
-                .stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        return itemSearchCache.get(text, from, size, () -> searchItems(text, from, size));
+    }
+
+    /**
+     * Если окно укладывается в горизонт индекса занятости, найденные по тексту вещи фильтруются
+     * по нему порциями; иначе отвечает один запрос с анти-соединением по бронированиям.
+     */
+    @Override
+    public List<ItemDto> searchAvailable(String text, LocalDateTime start, LocalDateTime end, int from, int size) {
+        if (start == null || end == null || !start.isBefore(end)) {
+            log.error("Установите корректный период для поиска свободных вещей.");
+            throw new ValidationException("Установите корректный период для поиска свободных вещей.");
+        }
+        if (text == null || text.isBlank()) {
+            return new ArrayList<>();
+        }
+        if (!itemOccupancyIndex.covers(start, end)) {
+            return itemRepository.searchAvailable(text, start, end, PageRequest.of(from / size, size))
+                    .stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        }
+        List<ItemDto> found = new ArrayList<>();
+        int skip = from / size * size;
+        List<Item> chunk;
+        int chunkNumber = 0;
+        do {
+            chunk = itemRepository.search(text, PageRequest.of(chunkNumber++, AVAILABILITY_CHUNK_SIZE));
+            Set<Long> free = itemOccupancyIndex.findFree(
+                    chunk.stream().map(Item::getId).collect(Collectors.toList()), start, end);
+            List<Item> candidates = chunk.stream()
+                    .filter(item -> free.contains(item.getId()))
+                    .collect(Collectors.toList());
+            int next = 0;
+            while (next < candidates.size() && found.size() < size) {
+                List<Item> page = candidates.subList(next,
+                        Math.min(candidates.size(), next + skip + size - found.size()));
+                next += page.size();
+                Set<Long> busy = itemOccupancyIndex.findBusy(
+                        page.stream().map(Item::getId).collect(Collectors.toList()), start, end);
+                for (Item item : page) {
+                    if (busy.contains(item.getId())) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        found.add(ItemMapper.toItemDto(item));
+                    }
+                }
+            }
+        } while (found.size() < size && chunk.size() == AVAILABILITY_CHUNK_SIZE);
+        return found;
+    }
+
+    @Override
+    public List<String> suggest(String prefix, int limit) {
+        return itemSuggestIndex.suggest(prefix, limit);
     }
 
     @Override
+    @Transactional
     public CommentDtoOutput addComment(long itemId, long userId, CommentDtoInput commentDtoInput) {
-        Booking booking = bookingRepository.findBookingByItemIdAndBookerIdAndEndBefore(
-                itemId, userId, LocalDateTime.now());
-        if (booking == null) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!bookingRepository.existsByItemIdAndBookerIdAndEndBefore(itemId, userId, now)
+                && !archivedBookingRepository.existsByItemIdAndBookerIdAndEndBefore(itemId, userId, now)) {
             log.error("Отзыв может оставить только тот пользователь, " +
                     "который брал эту вещь в аренду, и только после окончания срока аренды.");
             throw new ValidationException("Отзыв может оставить только тот пользователь, " +
@@ -118,14 +262,61 @@ public class ItemServiceImpl implements ItemService {
         Comment comment = CommentMapper.toComment(commentDtoInput);
         comment.setItem(getItem(itemId));
         comment.setAuthor(getUser(userId));
-        return CommentMapper.commentDtoOutput(commentRepository.save(comment));
+        CommentDtoOutput savedComment = CommentMapper.commentDtoOutput(commentRepository.save(comment));
+        itemRepository.incrementCommentCount(itemId);
+        itemViewService.refresh(itemId);
+        return savedComment;
     }
 
-    public void throwIfUserNotFound(long userId) {
-        if (userRepository.findById(userId).isEmpty()) {
-            log.error("Пользователя c идентификатором " + userId + " не существует.");
-            throw new NotFoundException("Пользователя c идентификатором " + userId + " не существует.");
+    /**
+     * Запросы других пользователей, подходящие новой вещи, подбираются по индексу открытых запросов
+     * и сохраняются как подсказки для владельца вещи и для авторов запросов.
+     */
+    private void saveRequestMatches(Item item, long ownerId) {
+        List<ItemRequestMatch> matches = itemRequestMatchIndex.match(item.getName() + " " + item.getDescription(),
+                        ownerId, maxRequestMatches).stream()
+                .map(match -> new ItemRequestMatch(item,
+                        itemRequestRepository.getReferenceById(match.getRequestId()), match.getScore()))
+                .collect(Collectors.toList());
+        if (!matches.isEmpty()) {
+            itemRequestMatchRepository.saveAll(matches);
+        }
+    }
+
+    private List<ItemDto> searchItems(String text, int from, int size) {
+        PageRequest pageRequest = PageRequest.of(from / size, size);
+        switch (searchMode) {
+            case INDEX:
+                return itemSearchIndex.search(text, from, size);
+            case FULL_TEXT:
+                return itemRepository.searchFullText(text, pageRequest)
+                        .stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+            default:
+                return itemRepository.search(text, pageRequest)
+                        .stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        }
+    }
+
+    private List<ItemOutputDto> toItemDtoOutputWithBookingsAndComments(List<Item> items) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
         }
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemBookingTimeline> timelines = bookingTimelineCache.getAll(itemIds);
+        Map<Long, List<CommentDtoOutput>> comments = commentRepository.findRecentByItemIdIn(itemIds, recentComments).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(CommentMapper::commentDtoOutput, Collectors.toList())));
+        return items.stream().map(item -> {
+            ItemOutputDto itemOutputDto = ItemMapper.toItemDtoOutput(item);
+            ItemBookingTimeline timeline = timelines.get(item.getId());
+            timeline.last(now)
+                    .ifPresent(last -> itemOutputDto.setLastBooking(BookingMapper.toBookingDtoForItem(last)));
+            timeline.next(now)
+                    .ifPresent(next -> itemOutputDto.setNextBooking(BookingMapper.toBookingDtoForItem(next)));
+            itemOutputDto.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
+            return itemOutputDto;
+        }).collect(Collectors.toList());
     }
 
     private Item getItem(long itemId) {
@@ -137,10 +328,7 @@ public class ItemServiceImpl implements ItemService {
     }
 
     private User getUser(long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.error("Пользователь c идентификатором " + userId + " не найден.");
-                    return new NotFoundException("Пользователь c идентификатором " + userId + " не найден.");
-                });
+        userExistenceCache.throwIfNotFound(userId);
+        return userRepository.getReferenceById(userId);
     }
 }
@@ -0,0 +1,42 @@
+package ru.practicum.shareit.item.view;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ru.practicum.shareit.item.comment.CommentDtoOutput;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.util.ArrayList;
+import java.util.List;
+
+@Converter
+public class CommentListConverter implements AttributeConverter<List<CommentDtoOutput>, String> {
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final TypeReference<List<CommentDtoOutput>> TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<CommentDtoOutput> comments) {
+        try {
+            return MAPPER.writeValueAsString(comments == null ? new ArrayList<>() : comments);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сохранить отзывы в представление вещи.", e);
+        }
+    }
+
+    @Override
+    public List<CommentDtoOutput> convertToEntityAttribute(String json) {
+        if (json == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return MAPPER.readValue(json, TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось прочитать отзывы из представления вещи.", e);
+        }
+    }
+}
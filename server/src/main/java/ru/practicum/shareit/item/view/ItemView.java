@@ -0,0 +1,55 @@
+package ru.practicum.shareit.item.view;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.practicum.shareit.item.comment.CommentDtoOutput;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Денормализованное представление карточки вещи: поля ItemOutputDto, собранные при записи.
+ * validUntil — момент, когда последнее или следующее бронирование сменится с течением времени;
+ * version упорядочивает параллельные пересборки одной вещи.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "item_view")
+public class ItemView {
+    @Id
+    @Column(name = "item_id")
+    private long itemId;
+    @Column(name = "owner_id")
+    private long ownerId;
+    @Column
+    private String name;
+    @Column
+    private String description;
+    @Column
+    private Boolean available;
+    @Column(name = "comment_count")
+    private long commentCount;
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+    @Convert(converter = CommentListConverter.class)
+    @Column(columnDefinition = "text")
+    private List<CommentDtoOutput> comments;
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil;
+    @Version
+    private Long version;
+
+    public boolean isValidAt(LocalDateTime dateTime) {
+        return validUntil == null || dateTime.isBefore(validUntil);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.view;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Пересборка item_view для заполнения после миграций: POST /actuator/itemviews.
+ * В список открытых по HTTP эндпоинтов по умолчанию не входит: операция тяжёлая и пишущая,
+ * её открывают явно через management.endpoints.web.exposure.include на закрытом порту управления.
+ */
+@Component
+@Endpoint(id = "itemviews")
+@RequiredArgsConstructor
+public class ItemViewEndpoint {
+    private final ItemViewService itemViewService;
+
+    @WriteOperation
+    public Map<String, Integer> rebuild() {
+        return Map.of("rebuilt", itemViewService.rebuild());
+    }
+}
@@ -0,0 +1,6 @@
+package ru.practicum.shareit.item.view;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ItemViewRepository extends JpaRepository<ItemView, Long> {
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.view;
+
+import java.util.Collection;
+
+public interface ItemViewService {
+
+    ItemView get(long itemId);
+
+    void refresh(long itemId);
+
+    void refreshAll(Collection<Long> itemIds);
+
+    int rebuild();
+}
@@ -0,0 +1,164 @@
+package ru.practicum.shareit.item.view;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.booking.timeline.ItemBookingTimeline;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.comment.CommentDtoOutput;
+import ru.practicum.shareit.item.comment.CommentMapper;
+import ru.practicum.shareit.item.comment.CommentRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.retry.OptimisticRetry;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemViewServiceImpl implements ItemViewService {
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final ItemViewRepository itemViewRepository;
+    private final ItemRepository itemRepository;
+    private final BookingTimelineCache bookingTimelineCache;
+    private final CommentRepository commentRepository;
+    private final OptimisticRetry optimisticRetry;
+
+    @Value("${shareit.items.comments.recent:10}")
+    private int recentComments = 10;
+
+    /**
+     * Устаревшее представление пересобирается на лету и не сохраняется: запись остаётся за refresh,
+     * иначе параллельные чтения одной вещи соревнуются за вставку по первичному ключу.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ItemView get(long itemId) {
+        LocalDateTime now = LocalDateTime.now();
+        return itemViewRepository.findById(itemId)
+                .filter(view -> view.isValidAt(now))
+                .orElseGet(() -> build(List.of(getItem(itemId)), Map.of(), now).get(0));
+    }
+
+    @Override
+    public void refresh(long itemId) {
+        refreshAll(List.of(itemId));
+    }
+
+    /**
+     * Представления пересобираются после фиксации текущей транзакции в отдельной транзакции, поэтому
+     * видят только зафиксированные бронирования и комментарии. Синхронизации выполняются в порядке
+     * регистрации: обновление таймлайнов, записанное раньше, применяется до пересборки.
+     * Параллельные пересборки одной вещи упорядочены версией строки item_view: представление читается
+     * раньше источников, и проигравшая по версии пересборка повторяется на свежих данных, а не
+     * затирает более новую.
+     */
+    @Override
+    public void refreshAll(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(itemIds);
+        AfterCommit.run(() -> save(ids));
+    }
+
+    @Override
+    public int rebuild() {
+        int rebuilt = 0;
+        int pageNumber = 0;
+        Page<Item> page;
+        do {
+            page = itemRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("id")));
+            save(page.getContent().stream().map(Item::getId).collect(Collectors.toList()));
+            rebuilt += page.getNumberOfElements();
+        } while (page.hasNext());
+        log.info("Представления вещей пересобраны, обработано {} вещей.", rebuilt);
+        return rebuilt;
+    }
+
+    /**
+     * Одновременная вставка представления той же вещи другой пересборкой считается таким же
+     * конфликтом версий и тоже повторяется.
+     */
+    private void save(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        optimisticRetry.executeInNewTransaction(() -> {
+            Map<Long, ItemView> views = itemViewRepository.findAllById(itemIds).stream()
+                    .collect(Collectors.toMap(ItemView::getItemId, Function.identity()));
+            List<Item> items = itemRepository.findAllById(itemIds);
+            try {
+                return itemViewRepository.saveAllAndFlush(build(items, views, LocalDateTime.now()));
+            } catch (DataIntegrityViolationException e) {
+                throw new OptimisticLockingFailureException("Представление вещи уже создано параллельно.", e);
+            }
+        });
+    }
+
+    private List<ItemView> build(List<Item> items, Map<Long, ItemView> views, LocalDateTime now) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> itemIds = items.stream().map(Item::getId).collect(Collectors.toList());
+        Map<Long, ItemBookingTimeline> timelines = bookingTimelineCache.load(itemIds);
+        Map<Long, List<CommentDtoOutput>> comments = commentRepository.findRecentByItemIdIn(itemIds, recentComments)
+                .stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(CommentMapper::commentDtoOutput, Collectors.toList())));
+        return items.stream().map(item -> {
+            ItemView view = views.getOrDefault(item.getId(), new ItemView());
+            view.setItemId(item.getId());
+            view.setOwnerId(item.getOwner().getId());
+            view.setName(item.getName());
+            view.setDescription(item.getDescription());
+            view.setAvailable(item.getAvailable());
+            view.setCommentCount(item.getCommentCount());
+            ItemBookingTimeline timeline = timelines.get(item.getId());
+            BookingSlot bookingLast = timeline.last(now).orElse(null);
+            view.setLastBookingId(bookingLast != null ? bookingLast.getId() : null);
+            view.setLastBookerId(bookingLast != null ? bookingLast.getBookerId() : null);
+            BookingSlot bookingNext = timeline.next(now).orElse(null);
+            view.setNextBookingId(bookingNext != null ? bookingNext.getId() : null);
+            view.setNextBookerId(bookingNext != null ? bookingNext.getBookerId() : null);
+            view.setValidUntil(earliest(bookingNext != null ? bookingNext.getStart() : null,
+                    timeline.currentEnd(now).orElse(null)));
+            view.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
+            return view;
+        }).collect(Collectors.toList());
+    }
+
+    private static LocalDateTime earliest(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first.isBefore(second) ? first : second;
+    }
+
+    private Item getItem(long itemId) {
+        return itemRepository.findById(itemId)
+                .orElseThrow(() -> {
+                    log.error("Вещь с id " + itemId + " не найдена.");
+                    return new NotFoundException("Вещь с id " + itemId + " не найдена.");
+                });
+    }
+}
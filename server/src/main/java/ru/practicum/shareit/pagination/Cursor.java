@@ -0,0 +1,72 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Непрозрачный курсор для постраничной выдачи по ключу: позиция последней полученной записи,
+ * (timestamp, id) либо только id.
+ */
+@Slf4j
+@Value
+public class Cursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String SEPARATOR = "|";
+
+    LocalDateTime timestamp;
+    long id;
+
+    public static Cursor of(LocalDateTime timestamp, long id) {
+        return new Cursor(timestamp, id);
+    }
+
+    public static Cursor of(long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor decode(String value) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return of(Long.parseLong(decoded));
+            }
+            return of(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            log.error("Некорректный курсор постраничной выдачи: " + value);
+            throw new ValidationException("Некорректный курсор постраничной выдачи: " + value);
+        }
+    }
+
+    public static Cursor decodeWithTimestamp(String value) {
+        Cursor cursor = decode(value);
+        if (cursor.getTimestamp() == null) {
+            log.error("Некорректный курсор постраничной выдачи: " + value);
+            throw new ValidationException("Некорректный курсор постраничной выдачи: " + value);
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        String value = timestamp == null ? String.valueOf(id) : timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T> ResponseEntity<List<T>> toResponse(List<T> content, int size, Function<T, Cursor> cursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!content.isEmpty() && content.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, cursor.apply(content.get(content.size() - 1)).encode());
+        }
+        return response.body(content);
+    }
+}
@@ -1,7 +1,10 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDtoInput;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
@@ -24,15 +27,27 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public List<ItemRequestDtoOutput> findAllOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
-        return itemRequestService.findAllOwner(userId);
+    public ResponseEntity<List<ItemRequestDtoOutput>> findAllOwner(
+            @RequestParam(required = false, defaultValue = "0") int from,
+            @RequestParam(required = false, defaultValue = "20") int size,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(required = false) String after) {
+        List<ItemRequestDtoOutput> requests = after == null
+                ? itemRequestService.findAllOwner(from, size, userId)
+                : itemRequestService.findAllOwnerAfter(Cursor.decodeWithTimestamp(after), size, userId);
+        return Cursor.toResponse(requests, size, request -> Cursor.of(request.getCreated(), request.getId()));
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDtoOutput> findAll(@RequestParam(required = false, defaultValue = "0") int from,
-                                              @RequestParam(required = false, defaultValue = "20") int size,
-                                              @RequestHeader("X-Sharer-User-Id") long userId) {
-        return itemRequestService.findAll(from, size, userId);
+    public ResponseEntity<List<ItemRequestDtoOutput>> findAll(
+            @RequestParam(required = false, defaultValue = "0") int from,
+            @RequestParam(required = false, defaultValue = "20") int size,
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(required = false) String after) {
+        List<ItemRequestDtoOutput> requests = after == null
+                ? itemRequestService.findAll(from, size, userId)
+                : itemRequestService.findAllAfter(Cursor.decodeWithTimestamp(after), size, userId);
+        return Cursor.toResponse(requests, size, request -> Cursor.of(request.getCreated(), request.getId()));
     }
 
     @GetMapping("/{id}")
@@ -40,4 +55,10 @@ public class ItemRequestController {
                                          @RequestHeader("X-Sharer-User-Id") long userId) {
         return itemRequestService.findById(requestId, userId);
     }
+
+    @GetMapping("/{id}/item-matches")
+    public List<ItemDto> findItemMatches(@PathVariable("id") long requestId,
+                                         @RequestHeader("X-Sharer-User-Id") long userId) {
+        return itemRequestService.findItemMatches(requestId, userId);
+    }
 }
@@ -0,0 +1,231 @@
+package ru.practicum.shareit.request.feed;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Общая лента последних {@code window-size} запросов вместе с вещами, от новых к старым, как в
+ * GET /requests/all. Страница пользователя собирается из окна без его собственных запросов; если окно
+ * не покрывает страницу целиком, отвечает база. Изменения применяются после фиксации транзакции.
+ * Запросы других экземпляров окно не видит: если самого нового запроса базы в окне нет, отвечает база,
+ * а окно догоняет её при перестройке по расписанию.
+ */
+@Slf4j
+@Component
+public class ItemRequestFeed {
+    private static final String METRIC_PREFIX = "shareit.requests.feed.";
+    private static final Comparator<FeedEntry> FEED_ORDER = Comparator
+            .comparing((FeedEntry entry) -> entry.created)
+            .thenComparingLong(entry -> entry.id)
+            .reversed();
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemRepository itemRepository;
+    private final int windowSize;
+    private final List<FeedEntry> entries = new ArrayList<>();
+    private final Map<Long, FeedEntry> byId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter hits;
+    private final Counter misses;
+    private boolean loaded;
+    private boolean complete;
+
+    public ItemRequestFeed(ItemRequestRepository itemRequestRepository,
+                           ItemRepository itemRepository,
+                           @Value("${shareit.requests.feed.window-size:1000}") int windowSize,
+                           MeterRegistry meterRegistry) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemRepository = itemRepository;
+        this.windowSize = windowSize;
+        this.hits = meterRegistry.counter(METRIC_PREFIX + "requests", "result", "hit");
+        this.misses = meterRegistry.counter(METRIC_PREFIX + "requests", "result", "miss");
+        Gauge.builder(METRIC_PREFIX + "size", this, ItemRequestFeed::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.requests.feed.rebuild-cron:30 * * * * *}")
+    public void rebuild() {
+        if (windowSize <= 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            byId.clear();
+            List<ItemRequest> requests = itemRequestRepository.findRecent(PageRequest.of(0, windowSize));
+            requests.forEach(request -> {
+                FeedEntry entry = new FeedEntry(request);
+                entries.add(entry);
+                byId.put(entry.id, entry);
+            });
+            if (!byId.isEmpty()) {
+                itemRepository.findAllByRequestIdIn(byId.keySet()).forEach(item -> {
+                    ItemDto itemDto = ItemMapper.toItemDto(item);
+                    byId.get(itemDto.getRequestId()).items.put(itemDto.getId(), itemDto);
+                });
+            }
+            complete = requests.size() < windowSize;
+            loaded = true;
+            log.info("Лента запросов построена: {} запросов в окне.", entries.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Страница ленты по смещению или пусто, если её нужно читать из базы.
+     */
+    public Optional<List<ItemRequestDtoOutput>> page(long userId, int from, int size) {
+        return read(userId, entry -> true, from / size * size, size);
+    }
+
+    /**
+     * Страница ленты после курсора (created, id) или пусто, если её нужно читать из базы.
+     */
+    public Optional<List<ItemRequestDtoOutput>> pageAfter(long userId, Cursor after, int size) {
+        return read(userId, entry -> entry.created.isBefore(after.getTimestamp())
+                || (entry.created.isEqual(after.getTimestamp()) && entry.id < after.getId()), 0, size);
+    }
+
+    public void add(ItemRequest itemRequest) {
+        if (windowSize <= 0) {
+            return;
+        }
+        FeedEntry entry = new FeedEntry(itemRequest);
+        afterCommit(() -> insert(entry));
+    }
+
+    /**
+     * Вещь, созданная или изменённая в ответ на запрос, обновляется в его записи ленты.
+     */
+    public void putItem(ItemDto itemDto) {
+        if (windowSize <= 0 || itemDto.getRequestId() == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            FeedEntry entry = byId.get(itemDto.getRequestId());
+            if (entry != null) {
+                entry.items.put(itemDto.getId(), itemDto);
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Optional<List<ItemRequestDtoOutput>> read(long userId, Predicate<FeedEntry> position, int skip, int size) {
+        if (windowSize <= 0) {
+            misses.increment();
+            return Optional.empty();
+        }
+        Long newestId = itemRequestRepository.findRecentIds(PageRequest.of(0, 1)).stream().findFirst().orElse(null);
+        List<ItemRequestDtoOutput> page = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (!loaded || (newestId != null && !byId.containsKey(newestId))) {
+                misses.increment();
+                return Optional.empty();
+            }
+            for (FeedEntry entry : entries) {
+                if (page.size() == size) {
+                    break;
+                }
+                if (entry.requestorId == userId || !position.test(entry)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    page.add(entry.toDto());
+                }
+            }
+            if (page.size() < size && !complete) {
+                misses.increment();
+                return Optional.empty();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.increment();
+        return Optional.of(page);
+    }
+
+    private void insert(FeedEntry entry) {
+        if (!loaded || byId.containsKey(entry.id)) {
+            return;
+        }
+        int index = Collections.binarySearch(entries, entry, FEED_ORDER);
+        int position = index < 0 ? -index - 1 : index;
+        if (position >= windowSize) {
+            complete = false;
+            return;
+        }
+        entries.add(position, entry);
+        byId.put(entry.id, entry);
+        while (entries.size() > windowSize) {
+            byId.remove(entries.remove(entries.size() - 1).id);
+            complete = false;
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        Runnable locked = () -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        AfterCommit.run(locked);
+    }
+
+    private static class FeedEntry {
+        private final long id;
+        private final String description;
+        private final LocalDateTime created;
+        private final long requestorId;
+        private final Map<Long, ItemDto> items = new TreeMap<>();
+
+        FeedEntry(ItemRequest request) {
+            this.id = request.getId();
+            this.description = request.getDescription();
+            this.created = request.getCreated();
+            this.requestorId = request.getRequestor().getId();
+        }
+
+        ItemRequestDtoOutput toDto() {
+            ItemRequestDtoOutput dto = new ItemRequestDtoOutput(id, description, created);
+            dto.setItems(new ArrayList<>(items.values()));
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.transaction.AfterCommit;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс открытых запросов (на которые ещё нет ни одной вещи) по словам описания.
+ * Вещь подходит запросу, если у них есть общие слова; чем их больше, тем выше совпадение.
+ * Изменения применяются после фиксации транзакции. Полностью индекс строится при старте и затем
+ * по расписанию, чтобы подхватить запросы, созданные и закрытые другими экземплярами.
+ */
+@Slf4j
+@Component
+public class ItemRequestMatchIndex {
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final Map<Long, IndexedRequest> requests = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemRequestMatchIndex(ItemRequestRepository itemRequestRepository) {
+        this.itemRequestRepository = itemRequestRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.requests.matching.rebuild-cron:0 */10 * * * *}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            requests.clear();
+            postings.clear();
+            List<ItemRequest> page;
+            int pageNumber = 0;
+            do {
+                page = itemRequestRepository.findAllOpen(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE));
+                page.forEach(request -> put(new IndexedRequest(request)));
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            log.info("Индекс открытых запросов построен, проиндексировано {} запросов.", requests.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void add(ItemRequest itemRequest) {
+        IndexedRequest request = new IndexedRequest(itemRequest);
+        afterCommit(() -> {
+            remove(request.id);
+            put(request);
+        });
+    }
+
+    /**
+     * Запрос закрыт: на него добавили вещь, больше его не предлагаем.
+     */
+    public void close(long requestId) {
+        afterCommit(() -> remove(requestId));
+    }
+
+    /**
+     * Открытые запросы, подходящие тексту вещи, по убыванию числа общих слов, при равенстве — сначала новые.
+     * Запросы пользователя {@code excludedRequestorId} не предлагаются.
+     */
+    public List<RequestMatch> match(String text, long excludedRequestorId, int limit) {
+        Map<Long, Integer> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (String token : tokens(text)) {
+                for (Long requestId : postings.getOrDefault(token, Set.of())) {
+                    if (requests.get(requestId).requestorId != excludedRequestorId) {
+                        scores.merge(requestId, 1, Integer::sum);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return scores.entrySet().stream()
+                .map(entry -> new RequestMatch(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingInt(RequestMatch::getScore).reversed()
+                        .thenComparing(Comparator.comparingLong(RequestMatch::getRequestId).reversed()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return requests.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        Runnable locked = () -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        AfterCommit.run(locked);
+    }
+
+    private void put(IndexedRequest request) {
+        requests.put(request.id, request);
+        for (String token : request.tokens) {
+            postings.computeIfAbsent(token, key -> new HashSet<>()).add(request.id);
+        }
+    }
+
+    private void remove(long requestId) {
+        IndexedRequest request = requests.remove(requestId);
+        if (request == null) {
+            return;
+        }
+        for (String token : request.tokens) {
+            Set<Long> ids = postings.get(token);
+            ids.remove(requestId);
+            if (ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    private static Set<String> tokens(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> token.length() >= MIN_TOKEN_LENGTH)
+                .collect(Collectors.toSet());
+    }
+
+    private static class IndexedRequest {
+        private final long id;
+        private final long requestorId;
+        private final Set<String> tokens;
+
+        IndexedRequest(ItemRequest request) {
+            this.id = request.getId();
+            this.requestorId = request.getRequestor().getId();
+            this.tokens = tokens(request.getDescription());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.request.matching;
+
+import lombok.Value;
+
+@Value
+public class RequestMatch {
+    long requestId;
+    int score;
+}
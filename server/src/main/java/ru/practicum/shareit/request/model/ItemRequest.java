@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "REQUESTS")
+@Table(name = "REQUESTS", indexes = {
+        @Index(name = "idx_requests_created", columnList = "created, id"),
+        @Index(name = "idx_requests_requestor_created", columnList = "requestor, created, id")})
 @NoArgsConstructor
 public class ItemRequest {
     @Id
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.request.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.practicum.shareit.item.model.Item;
+
+import javax.persistence.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "item_request_matches",
+        uniqueConstraints = @UniqueConstraint(name = "uq_item_request_matches", columnNames = {"item_id", "request_id"}),
+        indexes = @Index(name = "idx_item_request_matches_request_id", columnList = "request_id, score"))
+public class ItemRequestMatch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "request_id", nullable = false)
+    private ItemRequest request;
+    @Column(nullable = false)
+    private int score;
+
+    public ItemRequestMatch(Item item, ItemRequest request, int score) {
+        this.item = item;
+        this.request = request;
+        this.score = score;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestMatch;
+
+import java.util.List;
+
+public interface ItemRequestMatchRepository extends JpaRepository<ItemRequestMatch, Long> {
+
+    @Query("select r from ItemRequestMatch m " +
+            "join m.request r " +
+            "join fetch r.requestor " +
+            "where m.item.id = ?1 " +
+            "order by m.score desc, r.id desc")
+    List<ItemRequest> findRequestsByItemId(long itemId);
+
+    @Query("select i from ItemRequestMatch m " +
+            "join m.item i " +
+            "where m.request.id = ?1 and i.available = true " +
+            "order by m.score desc, i.id")
+    List<Item> findAvailableItemsByRequestId(long requestId);
+}
@@ -2,13 +2,44 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
-    List<ItemRequest> findAllByRequestorIdOrderByCreatedDesc(long userId);
+    @Query("select r from ItemRequest r where r.requestor.id = ?1 order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequestorId(long userId, Pageable pageable);
 
+    @Query("select r from ItemRequest r " +
+            "where r.requestor.id = ?1 and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequestorIdBefore(long userId, LocalDateTime created, long id, Pageable pageable);
+
+    @Query("select r from ItemRequest r where r.requestor.id <> ?1 order by r.created desc, r.id desc")
     List<ItemRequest> findAllByRequestorIdNotOrderByCreatedDesc(long userId, Pageable pageable);
+
+    @Query("select r from ItemRequest r join fetch r.requestor order by r.created desc, r.id desc")
+    List<ItemRequest> findRecent(Pageable pageable);
+
+    @Query("select r.id from ItemRequest r order by r.created desc, r.id desc")
+    List<Long> findRecentIds(Pageable pageable);
+
+    @Query("select r from ItemRequest r " +
+            "where r.requestor.id <> ?1 and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequestorIdNotBefore(long userId, LocalDateTime created, long id, Pageable pageable);
+
+    @Query("select r from ItemRequest r " +
+            "join fetch r.requestor " +
+            "where not exists (select i.id from Item i where i.request = r) " +
+            "order by r.id")
+    List<ItemRequest> findAllOpen(Pageable pageable);
+
+    @Query("select r.id from ItemRequest r where r.id in ?1")
+    Set<Long> findExistingIds(Collection<Long> ids);
 }
@@ -1,6 +1,8 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoInput;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
 
 import java.util.List;
@@ -8,9 +10,15 @@ import java.util.List;
 public interface ItemRequestService {
     ItemRequestDtoOutput add(ItemRequestDtoInput itemRequestDto, long userId);
 
-    List<ItemRequestDtoOutput> findAllOwner(long userId);
+    List<ItemRequestDtoOutput> findAllOwner(int from, int size, long userId);
+
+    List<ItemRequestDtoOutput> findAllOwnerAfter(Cursor after, int size, long userId);
 
     List<ItemRequestDtoOutput> findAll(int from, int size, long userId);
 
+    List<ItemRequestDtoOutput> findAllAfter(Cursor after, int size, long userId);
+
     ItemRequestDtoOutput findById(long requestId, long userId);
+
+    List<ItemDto> findItemMatches(long requestId, long userId);
 }
@@ -4,18 +4,28 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDtoInput;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.matching.ItemRequestMatchIndex;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestMatchRepository;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,64 +34,95 @@ import java.util.stream.Collectors;
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository requestRepository;
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
     private final ItemRepository itemRepository;
+    private final ItemRequestMatchRepository itemRequestMatchRepository;
+    private final ItemRequestMatchIndex itemRequestMatchIndex;
+    private final ItemRequestFeed itemRequestFeed;
 
     @Override
+    @Transactional
     public ItemRequestDtoOutput add(ItemRequestDtoInput itemRequestDto, long userId) {
+        userExistenceCache.throwIfNotFound(userId);
         ItemRequest itemRequest = ItemRequestMapper.toItemRequest(itemRequestDto);
-        itemRequest.setRequestor(userRepository.findById(userId).orElseThrow(() -> {
-            log.error("Пользователь c идентификатором " + userId + " не найден.");
-            return new NotFoundException("Пользователь c идентификатором " + userId + " не найден.");
-        }));
-        itemRequest.setCreated(LocalDateTime.now());
+        itemRequest.setRequestor(userRepository.getReferenceById(userId));
+        itemRequest.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         requestRepository.save(itemRequest);
+        itemRequestMatchIndex.add(itemRequest);
+        itemRequestFeed.add(itemRequest);
         return ItemRequestMapper.toItemRequestDtoOutput(itemRequest);
     }
 
     @Override
-    public List<ItemRequestDtoOutput> findAllOwner(long userId) {
-        userRepository.findById(userId).orElseThrow(() -> {
-            log.error("пользователь не найден");
-            throw new NotFoundException("пользователь не найден");
-        });
-        return requestRepository.findAllByRequestorIdOrderByCreatedDesc(userId).stream()
-                .map(ItemRequestMapper::toItemRequestDtoOutput)
-                .peek(itemRequestDtoOutput ->
-                        itemRequestDtoOutput.setItems(
-                                itemRepository.findAllByRequestId(itemRequestDtoOutput.getId())
-                                        .stream().map(ItemMapper::toItemDto).collect(Collectors.toList())))
-                .collect(Collectors.toList());
+    public List<ItemRequestDtoOutput> findAllOwner(int from, int size, long userId) {
+        userExistenceCache.throwIfNotFound(userId);
+        return withItems(requestRepository.findAllByRequestorId(userId, PageRequest.of(from / size, size)));
+    }
+
+    @Override
+    public List<ItemRequestDtoOutput> findAllOwnerAfter(Cursor after, int size, long userId) {
+        userExistenceCache.throwIfNotFound(userId);
+        return withItems(requestRepository.findAllByRequestorIdBefore(userId, after.getTimestamp(), after.getId(),
+                PageRequest.of(0, size)));
     }
 
     @Override
     public List<ItemRequestDtoOutput> findAll(int from, int size, long userId) {
-        userRepository.findById(userId).orElseThrow(() -> {
-            log.error("пользователь не найден");
-            throw new NotFoundException("пользователь не найден");
-        });
-        return requestRepository.findAllByRequestorIdNotOrderByCreatedDesc(userId,
-                        PageRequest.of(from / size, size)).stream().map(ItemRequestMapper::toItemRequestDtoOutput)
-                .peek(itemRequestDtoOutput ->
-                        itemRequestDtoOutput.setItems(
-                                itemRepository.findAllByRequestId(itemRequestDtoOutput.getId()).stream()
-                                        .map(ItemMapper::toItemDto).collect(Collectors.toList())))
-                .collect(Collectors.toList());
+        userExistenceCache.throwIfNotFound(userId);
+        return itemRequestFeed.page(userId, from, size)
+                .orElseGet(() -> withItems(requestRepository.findAllByRequestorIdNotOrderByCreatedDesc(userId,
+                        PageRequest.of(from / size, size))));
+    }
+
+    @Override
+    public List<ItemRequestDtoOutput> findAllAfter(Cursor after, int size, long userId) {
+        userExistenceCache.throwIfNotFound(userId);
+        return itemRequestFeed.pageAfter(userId, after, size)
+                .orElseGet(() -> withItems(requestRepository.findAllByRequestorIdNotBefore(userId,
+                        after.getTimestamp(), after.getId(), PageRequest.of(0, size))));
     }
 
     @Override
     public ItemRequestDtoOutput findById(long requestId, long userId) {
-        userRepository.findById(userId).orElseThrow(() -> {
-            log.error("пользователь не найден");
-            throw new NotFoundException("пользователь не найден");
+        userExistenceCache.throwIfNotFound(userId);
+        ItemRequest itemRequest = requestRepository.findById(requestId).orElseThrow(() -> {
+            log.error("запрос с id " + requestId + " не существует");
+            throw new NotFoundException("запрос с id " + requestId + " не существует");
         });
+        return withItems(List.of(itemRequest)).get(0);
+    }
+
+    @Override
+    public List<ItemDto> findItemMatches(long requestId, long userId) {
+        userExistenceCache.throwIfNotFound(userId);
         ItemRequest itemRequest = requestRepository.findById(requestId).orElseThrow(() -> {
             log.error("запрос с id " + requestId + " не существует");
             throw new NotFoundException("запрос с id " + requestId + " не существует");
         });
-        ItemRequestDtoOutput itemRequestDtoOutput = ItemRequestMapper.toItemRequestDtoOutput(itemRequest);
-        itemRequestDtoOutput.setItems(itemRepository
-                .findAllByRequestId(requestId)
-                .stream().map(ItemMapper::toItemDto).collect(Collectors.toList()));
-        return itemRequestDtoOutput;
+        if (itemRequest.getRequestor().getId() != userId) {
+            log.error("Подходящие вещи для запроса может смотреть только его автор.");
+            throw new NotFoundException("Подходящие вещи для запроса может смотреть только его автор.");
+        }
+        return itemRequestMatchRepository.findAvailableItemsByRequestId(requestId).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Вещи для всей страницы запросов загружаются одним запросом и раскладываются по запросам в памяти.
+     */
+    private List<ItemRequestDtoOutput> withItems(List<ItemRequest> requests) {
+        List<ItemRequestDtoOutput> result = requests.stream()
+                .map(ItemRequestMapper::toItemRequestDtoOutput)
+                .collect(Collectors.toList());
+        if (result.isEmpty()) {
+            return result;
+        }
+        Map<Long, List<ItemDto>> items = itemRepository.findAllByRequestIdIn(result.stream()
+                        .map(ItemRequestDtoOutput::getId).collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId(),
+                        Collectors.mapping(ItemMapper::toItemDto, Collectors.toList())));
+        result.forEach(request -> request.setItems(items.getOrDefault(request.getId(), new ArrayList<>())));
+        return result;
     }
 }
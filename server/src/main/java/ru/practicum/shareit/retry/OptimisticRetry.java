@@ -0,0 +1,78 @@
+package ru.practicum.shareit.retry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет действие в отдельной транзакции и повторяет его, если транзакция проиграла
+ * конкурирующей по версии записи. Пауза между попытками растёт экспоненциально со случайной
+ * добавкой, чтобы столкнувшиеся запросы не повторялись одновременно. Когда попытки кончились,
+ * конфликт пробрасывается дальше и превращается в 409.
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final int maxAttempts;
+    private final Duration backoff;
+
+    public OptimisticRetry(TransactionTemplate transactionTemplate,
+                           @Value("${shareit.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${shareit.retry.backoff:20ms}") Duration backoff) {
+        this.transactionTemplate = transactionTemplate;
+        this.newTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        return retry(transactionTemplate, action);
+    }
+
+    /**
+     * Каждая попытка идёт в собственной новой транзакции, даже если вызов пришёл из уже идущей
+     * или из afterCommit только что зафиксированной.
+     */
+    public <T> T executeInNewTransaction(Supplier<T> action) {
+        return retry(newTransactionTemplate, action);
+    }
+
+    private <T> T retry(TransactionTemplate template, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return template.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Конфликт параллельного изменения не разрешился за {} попыток.", maxAttempts);
+                    throw e;
+                }
+                log.warn("Конфликт параллельного изменения, попытка {} из {}.", attempt, maxAttempts);
+                pause(attempt, e);
+            }
+        }
+    }
+
+    private void pause(int attempt, OptimisticLockingFailureException conflict) {
+        long delay = backoff.toMillis() << (attempt - 1);
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.transaction;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Откладывает изменения памяти (индексов, кэшей, подписчиков) до фиксации текущей транзакции,
+ * чтобы откаченная запись в них не попала; без транзакции выполняет сразу. Действие, отложенное
+ * изнутри уже выполняющегося afterCommit, тоже выполняется сразу: синхронизации, зарегистрированные
+ * на этом этапе, Spring не вызывает, и оно бы потерялось.
+ */
+@UtilityClass
+public class AfterCommit {
+    private final ThreadLocal<Boolean> committed = ThreadLocal.withInitial(() -> false);
+
+    public void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || committed.get()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                boolean outer = committed.get();
+                committed.set(true);
+                try {
+                    action.run();
+                } finally {
+                    committed.set(outer);
+                }
+            }
+        });
+    }
+}
@@ -1,7 +1,15 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.user.model.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    @Query("select case when count(u) > 0 then true else false end from User u where lower(u.email) = lower(?1)")
+    boolean existsByEmailIgnoreCase(String email);
+
+    @Query("select case when count(u) > 0 then true else false end from User u " +
+            "where lower(u.email) = lower(?1) and u.id <> ?2")
+    boolean existsByEmailIgnoreCaseAndIdNot(String email, long id);
 }
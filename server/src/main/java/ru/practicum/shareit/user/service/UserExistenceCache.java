@@ -0,0 +1,164 @@
+package ru.practicum.shareit.user.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш существования пользователей для проверки заголовка X-Sharer-User-Id. Известные id хранятся
+ * не дольше {@code ttl}, отсутствующие — не дольше {@code negative-ttl}; сверх {@code max-size}
+ * вытесняются самые старые записи. Чтение идёт без блокировок.
+ * Удаление пользователя сбрасывает запись сразу и повторно после завершения транзакции; проверка,
+ * которая могла не увидеть параллельное удаление, в кэш не попадает.
+ */
+@Slf4j
+@Component
+public class UserExistenceCache {
+    private static final String METRIC_PREFIX = "shareit.users.existence.";
+
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserExistenceCache(UserRepository userRepository,
+                              @Value("${shareit.users.existence.max-size:100000}") int maxSize,
+                              @Value("${shareit.users.existence.ttl:1m}") Duration ttl,
+                              @Value("${shareit.users.existence.negative-ttl:5s}") Duration negativeTtl,
+                              MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.hits = meterRegistry.counter(METRIC_PREFIX + "requests", "result", "hit");
+        this.misses = meterRegistry.counter(METRIC_PREFIX + "requests", "result", "miss");
+        Gauge.builder(METRIC_PREFIX + "size", this, UserExistenceCache::size).register(meterRegistry);
+    }
+
+    public boolean exists(long userId) {
+        Entry cached = entries.get(userId);
+        if (cached != null) {
+            if (cached.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return cached.exists;
+            }
+            entries.remove(userId, cached);
+        }
+        long loadGeneration = generation.get();
+        misses.increment();
+        boolean exists = userRepository.existsById(userId);
+        if (maxSize > 0) {
+            put(userId, exists, loadGeneration);
+        }
+        return exists;
+    }
+
+    /**
+     * Общая проверка пользователя из заголовка для всех сервисов и контроллеров.
+     */
+    public void throwIfNotFound(long userId) {
+        if (!exists(userId)) {
+            log.error("Пользователя c идентификатором " + userId + " не существует.");
+            throw new NotFoundException("Пользователя c идентификатором " + userId + " не существует.");
+        }
+    }
+
+    /**
+     * Пользователь создан: запоминать, что его нет, больше нельзя.
+     */
+    public void added(long userId) {
+        invalidateNowAndAfterCommit(userId);
+    }
+
+    public void deleted(long userId) {
+        invalidateNowAndAfterCommit(userId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void put(long userId, boolean exists, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        Entry entry = new Entry(userId, exists, System.currentTimeMillis() + (exists ? ttlMillis : negativeTtlMillis));
+        entries.put(userId, entry);
+        // Сброс мог пройти между проверкой поколения и записью: invalidate сначала меняет поколение,
+        // поэтому здесь достаточно перепроверить его и убрать свою запись.
+        if (generation.get() != loadGeneration) {
+            entries.remove(userId, entry);
+            return;
+        }
+        insertionOrder.add(entry);
+        if (queued.incrementAndGet() > maxSize) {
+            evictOldest();
+        }
+    }
+
+    /**
+     * Очередь может содержать уже сброшенные или перезаписанные записи, поэтому ограничена её длина,
+     * а не размер карты; такая позиция удаляет из карты только саму себя.
+     */
+    private void evictOldest() {
+        while (queued.get() > maxSize) {
+            Entry eldest = insertionOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            entries.remove(eldest.userId, eldest);
+        }
+    }
+
+    private void invalidateNowAndAfterCommit(long userId) {
+        invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private void invalidate(long userId) {
+        generation.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    private static final class Entry {
+        private final long userId;
+        private final boolean exists;
+        private final long expiresAt;
+
+        private Entry(long userId, boolean exists, long expiresAt) {
+            this.userId = userId;
+            this.exists = exists;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
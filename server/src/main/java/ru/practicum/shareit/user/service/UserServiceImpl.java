@@ -2,6 +2,8 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.exception.NotFoundException;
@@ -11,18 +13,26 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.util.List;
-import java.util.Locale;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final String EMAIL_CONSTRAINT = "uq_users_email_lower";
+
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
 
     public UserDto add(UserDto userDto) {
         User user = UserMapper.toUser(userDto);
-        return UserMapper.toUserDto(userRepository.save(user));
+        if (user.getEmail() != null && userRepository.existsByEmailIgnoreCase(user.getEmail())) {
+            log.error("Пользователь с почтой " + user.getEmail() + " уже добавлен.");
+            throw new AlreadyExistsException("Пользователь с почтой " + user.getEmail() + " уже добавлен.");
+        }
+        UserDto savedUser = UserMapper.toUserDto(saveUser(user));
+        userExistenceCache.added(savedUser.getId());
+        return savedUser;
     }
 
     public UserDto getById(long id) {
@@ -36,14 +46,13 @@ public class UserServiceImpl implements UserService {
             updateUser.setName(userDto.getName());
         }
         if (userDto.getEmail() != null) {
-            if (userRepository.findAll().stream()
-                    .anyMatch(u -> u.getEmail().toLowerCase(Locale.ROOT).equals(userDto.getEmail().toLowerCase()))) {
+            if (userRepository.existsByEmailIgnoreCaseAndIdNot(userDto.getEmail(), id)) {
                 log.error("Пользователь с почтой " + userDto.getEmail() + " уже добавлен.");
                 throw new AlreadyExistsException("Пользователь с почтой " + userDto.getEmail() + " уже добавлен.");
             }
             updateUser.setEmail(userDto.getEmail());
         }
-        return UserMapper.toUserDto(userRepository.save(updateUser));
+        return UserMapper.toUserDto(saveUser(updateUser));
     }
 
     public List<UserDto> getAll() {
@@ -52,6 +61,37 @@ public class UserServiceImpl implements UserService {
 
     public void delete(long id) {
         userRepository.deleteById(id);
+        userExistenceCache.deleted(id);
+    }
+
+    /**
+     * Сохраняет пользователя. Если параллельный запрос занял ту же почту после проверки,
+     * нарушение уникального индекса по почте превращается в AlreadyExistsException.
+     */
+    private User saveUser(User user) {
+        try {
+            return userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (!isEmailViolation(e)) {
+                throw e;
+            }
+            log.error("Пользователь с почтой " + user.getEmail() + " уже добавлен.");
+            throw new AlreadyExistsException("Пользователь с почтой " + user.getEmail() + " уже добавлен.");
+        }
+    }
+
+    /**
+     * Диалекты отдают имя ограничения по-разному: H2 — в верхнем регистре, со схемой и остатком
+     * сообщения, поэтому имя ищется как подстрока.
+     */
+    private boolean isEmailViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+                return constraintName != null && constraintName.toLowerCase().contains(EMAIL_CONSTRAINT);
+            }
+        }
+        return false;
     }
 
     private User getUser(long userId) {
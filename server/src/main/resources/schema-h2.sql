@@ -0,0 +1,4 @@
+-- H2 не индексирует выражения: почта в нижнем регистре хранится в вычисляемом столбце, а уникальный индекс
+-- с тем же именем, что и на PostgreSQL (schema-postgresql.sql), строится по нему.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS email_lower VARCHAR(512) GENERATED ALWAYS AS (LOWER(email));
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_email_lower ON users (email_lower);
@@ -0,0 +1,45 @@
+-- Почта уникальна без учёта регистра; этот же индекс обслуживает проверку UserRepository.existsByEmailIgnoreCase.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_users_email_lower ON users (lower(email));
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_fts ON items
+    USING gin (to_tsvector('simple', name || ' ' || description));
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING gin (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING gin (description gin_trgm_ops);
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- bookings секционирована по start_date: Hibernate создаёт обычную таблицу, здесь она пересоздаётся
+-- секционированной. В PostgreSQL 13 исключающее ограничение нельзя объявить на родительской таблице,
+-- поэтому оно задаётся для каждой секции (месячные секции создаёт BookingPartitionManager).
+-- Пересечения между секциями не пропускает сервис: подтверждение увеличивает версию вещи, и параллельное
+-- подтверждение той же вещи повторяется после конфликта версий.
+DROP TABLE IF EXISTS bookings CASCADE;
+CREATE SEQUENCE IF NOT EXISTS bookings_id_seq;
+CREATE TABLE bookings
+(
+    id         BIGINT DEFAULT nextval('bookings_id_seq') NOT NULL,
+    start_date TIMESTAMP                                 NOT NULL,
+    end_date   TIMESTAMP                                 NOT NULL,
+    item_id    BIGINT REFERENCES items (id),
+    booker_id  BIGINT REFERENCES users (id),
+    status     VARCHAR(255),
+    lifecycle  VARCHAR(16)                               NOT NULL,
+    version    BIGINT DEFAULT 0                          NOT NULL,
+    CONSTRAINT pk_booking PRIMARY KEY (id, start_date)
+) PARTITION BY RANGE (start_date);
+ALTER SEQUENCE bookings_id_seq OWNED BY bookings.id;
+
+CREATE TABLE bookings_default PARTITION OF bookings (
+    CONSTRAINT bookings_default_approved_no_overlap
+        EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status = 'APPROVED')
+) DEFAULT;
+
+CREATE INDEX idx_bookings_booker_id_start_date ON bookings (booker_id, start_date, id);
+CREATE INDEX idx_bookings_item_id_start_date ON bookings (item_id, start_date, id);
+CREATE INDEX idx_bookings_status ON bookings (status);
+CREATE INDEX idx_bookings_booker_id_lifecycle ON bookings (booker_id, lifecycle, start_date, id);
+CREATE INDEX idx_bookings_item_id_lifecycle ON bookings (item_id, lifecycle, start_date, id);
+CREATE INDEX idx_bookings_lifecycle_start_date ON bookings (lifecycle, start_date);
+CREATE INDEX idx_bookings_lifecycle_end_date ON bookings (lifecycle, end_date);
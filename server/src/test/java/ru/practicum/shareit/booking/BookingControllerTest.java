@@ -7,25 +7,43 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.events.BookingEventHub;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingExportService;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDtoForBooking;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -34,6 +52,12 @@ public class BookingControllerTest {
     private ObjectMapper mapper;
     @MockBean
     private BookingService bookingService;
+    @MockBean
+    private BookingExportService bookingExportService;
+    @MockBean
+    private BookingEventHub bookingEventHub;
+    @MockBean
+    private UserExistenceCache userExistenceCache;
     @Autowired
     private MockMvc mvc;
 
@@ -102,6 +126,26 @@ public class BookingControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void approveAll() throws Exception {
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false));
+        when(bookingService.approveAll(anyLong(), any())).thenReturn(List.of(
+                new BookingDecisionResultDto(1L, BookingStatus.APPROVED, null),
+                new BookingDecisionResultDto(2L, null, "Такого бронирования не существует.")));
+
+        mvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(decisions))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingId", is(1L), Long.class))
+                .andExpect(jsonPath("$[0].status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].error", is("Такого бронирования не существует.")));
+    }
+
     @Test
     void approveBooking() throws Exception {
         when(bookingService.approve(anyLong(), anyLong(), anyBoolean())).thenReturn(bookingDtoOutput);
@@ -172,6 +216,21 @@ public class BookingControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void countForOwner() throws Exception {
+        when(bookingService.countForOwner(1L)).thenReturn(new BookingCountsDto(6, 1, 2, 3, 2, 1));
+
+        mvc.perform(get("/bookings/owner/counts")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all", is(6)))
+                .andExpect(jsonPath("$.current", is(1)))
+                .andExpect(jsonPath("$.past", is(2)))
+                .andExpect(jsonPath("$.future", is(3)))
+                .andExpect(jsonPath("$.waiting", is(2)))
+                .andExpect(jsonPath("$.rejected", is(1)));
+    }
+
     @Test
     void getAllForBooker() throws Exception {
         when(bookingService.findAllForBooker(anyInt(), anyInt(), anyLong(), anyString()))
@@ -223,4 +282,83 @@ public class BookingControllerTest {
                         .header("X-Sharer-User-Id", 1L))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    void getAllForBookerWithCursor() throws Exception {
+        Cursor after = Cursor.of(bookingDtoOutput2.getStart(), bookingDtoOutput2.getId());
+        when(bookingService.findAllForBookerAfter(eq(after), eq(1), anyLong(), anyString()))
+                .thenReturn(List.of(bookingDtoOutput));
+
+        mvc.perform(get("/bookings")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("size", "1")
+                        .param("after", after.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$.[0].id", is(bookingDtoOutput.getId()), Long.class))
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        Cursor.of(bookingDtoOutput.getStart(), bookingDtoOutput.getId()).encode()));
+    }
+
+    @Test
+    void getAllForOwnerWithWrongCursor() throws Exception {
+        mvc.perform(get("/bookings/owner")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("after", Cursor.of(1L).encode()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void exportBookings() throws Exception {
+        BookingExportDto exportDto = new BookingExportDto(1L, bookingDtoOutput.getStart(),
+                bookingDtoOutput.getEnd(), BookingStatus.APPROVED, 1L, new ItemDtoForBooking(1L, "name"));
+        doAnswer(invocation -> {
+            Consumer<BookingExportDto> consumer = invocation.getArgument(1);
+            consumer.accept(exportDto);
+            consumer.accept(exportDto);
+            return null;
+        }).when(bookingExportService).exportBookings(eq(1L), any());
+
+        MvcResult result = mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String line = mapper.writeValueAsString(exportDto) + "\n";
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", MediaType.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string(line + line))
+                .andExpect(content().string(not(containsString("email"))));
+    }
+
+    @Test
+    public void exportBookingsForUnknownUser() throws Exception {
+        doThrow(new NotFoundException("Пользователь не найден")).when(userExistenceCache).throwIfNotFound(99L);
+
+        mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 99L)
+                        .accept(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void events() throws Exception {
+        SseEmitter emitter = new SseEmitter();
+        when(bookingEventHub.subscribe(1L)).thenReturn(emitter);
+
+        MvcResult result = mvc.perform(get("/bookings/events")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("booking").id("1").data(bookingDtoOutput, MediaType.APPLICATION_JSON));
+        emitter.complete();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("event:booking\n")))
+                .andExpect(content().string(containsString(mapper.writeValueAsString(bookingDtoOutput))));
+    }
 }
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.events.BookingEventHub;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDtoForBooking;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookingEventHubTest {
+    private final BookingDtoOutput booking = new BookingDtoOutput(1L,
+            LocalDateTime.now().plusDays(1),
+            LocalDateTime.now().plusDays(2),
+            BookingStatus.APPROVED,
+            new User(2L, "booker", "booker@ya.ru"),
+            new ItemDtoForBooking(1L, "item"));
+
+    private BookingEventHub bookingEventHub;
+
+    @BeforeEach
+    void setUp() {
+        bookingEventHub = new BookingEventHub(2, Duration.ofMinutes(1), 1, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        bookingEventHub.shutdown();
+    }
+
+    @Test
+    public void publishReachesOnlyParticipants() throws Exception {
+        SseEmitter booker = bookingEventHub.subscribe(2L);
+        bookingEventHub.subscribe(3L);
+        booker.complete();
+
+        bookingEventHub.publish(booking, 1L);
+
+        await(() -> bookingEventHub.size() == 1);
+    }
+
+    @Test
+    public void publishWaitsForCommit() throws Exception {
+        bookingEventHub.subscribe(1L).complete();
+        TransactionSynchronizationManager.initSynchronization();
+
+        bookingEventHub.publish(booking, 1L);
+        Thread.sleep(50);
+        assertEquals(1, bookingEventHub.size());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        await(() -> bookingEventHub.size() == 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -6,14 +6,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingArchiver;
+import ru.practicum.shareit.booking.service.BookingLifecycleSweeper;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
@@ -22,11 +26,13 @@ import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 
@@ -41,6 +47,8 @@ public class BookingServiceIntegrationTest {
     private final BookingService bookingService;
     private final UserService userService;
     private final ItemService itemService;
+    private final BookingLifecycleSweeper bookingLifecycleSweeper;
+    private final BookingArchiver bookingArchiver;
 
     private final User owner = new User(1L,
             "owner",
@@ -149,4 +157,84 @@ public class BookingServiceIntegrationTest {
         assertTrue(bookings.contains(bookingDtoOutput1));
         assertTrue(bookings.contains(bookingDtoOutput2));
     }
+
+    @Test
+    public void findAllByStateFillsWholePage() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        User bookerRef = em.find(User.class, booker.getId());
+        Item itemRef = em.find(Item.class, item.getId());
+        for (int i = 1; i <= 3; i++) {
+            persistBooking(itemRef, bookerRef, now.minusDays(10 + i), now.minusDays(9 + i), BookingStatus.APPROVED);
+            persistBooking(itemRef, bookerRef, now.plusDays(i), now.plusDays(i + 1), BookingStatus.WAITING);
+        }
+        persistBooking(itemRef, bookerRef, now.minusHours(1), now.plusHours(1), BookingStatus.APPROVED);
+        persistBooking(itemRef, bookerRef, now.plusDays(5), now.plusDays(6), BookingStatus.REJECTED);
+
+        assertThat(bookingService.findAllForBooker(0, 2, booker.getId(), "PAST").size(), equalTo(2));
+        assertThat(bookingService.findAllForBooker(2, 2, booker.getId(), "PAST").size(), equalTo(1));
+        assertThat(bookingService.findAllForBooker(0, 10, booker.getId(), "FUTURE").size(), equalTo(4));
+        assertThat(bookingService.findAllForBooker(0, 10, booker.getId(), "CURRENT").size(), equalTo(1));
+        assertThat(bookingService.findAllForOwner(0, 2, owner.getId(), "WAITING").size(), equalTo(2));
+        assertThat(bookingService.findAllForOwner(0, 10, owner.getId(), "REJECTED").size(), equalTo(1));
+
+        List<BookingDtoOutput> firstPage = bookingService.findAllForOwner(0, 2, owner.getId(), "FUTURE");
+        List<BookingDtoOutput> secondPage = bookingService.findAllForOwnerAfter(
+                Cursor.of(firstPage.get(1).getStart(), firstPage.get(1).getId()), 2, owner.getId(), "FUTURE");
+        assertThat(firstPage.get(0).getStatus(), equalTo(BookingStatus.REJECTED));
+        assertThat(secondPage.size(), equalTo(2));
+        assertTrue(secondPage.get(0).getStart().isBefore(firstPage.get(1).getStart()));
+    }
+
+    @Test
+    public void sweepAdvancesLifecycle() {
+        LocalDateTime now = LocalDateTime.now();
+        User bookerRef = em.find(User.class, booker.getId());
+        Item itemRef = em.find(Item.class, item.getId());
+        persistBooking(itemRef, bookerRef, now.plusDays(1), now.plusDays(2), BookingStatus.APPROVED);
+        persistBooking(itemRef, bookerRef, now.plusDays(3), now.plusDays(10), BookingStatus.APPROVED);
+        persistBooking(itemRef, bookerRef, now.plusDays(20), now.plusDays(21), BookingStatus.WAITING);
+        assertThat(bookingService.findAllForBooker(0, 10, booker.getId(), "FUTURE").size(), equalTo(3));
+
+        assertThat(bookingLifecycleSweeper.sweep(now.plusDays(5)), equalTo(3));
+        assertThat(bookingLifecycleSweeper.sweep(now.plusDays(5)), equalTo(0));
+        em.clear();
+
+        assertThat(bookingService.findAllForBooker(0, 10, booker.getId(), "PAST").size(), equalTo(1));
+        assertThat(bookingService.findAllForBooker(0, 10, booker.getId(), "CURRENT").size(), equalTo(1));
+        assertThat(bookingService.findAllForBooker(0, 10, booker.getId(), "FUTURE").size(), equalTo(1));
+    }
+
+    @Test
+    public void archivedBookingsStayVisible() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        User bookerRef = em.find(User.class, booker.getId());
+        Item itemRef = em.find(Item.class, item.getId());
+        Booking old = persistBooking(itemRef, bookerRef, now.minusDays(30), now.minusDays(29), BookingStatus.APPROVED);
+        persistBooking(itemRef, bookerRef, now.minusDays(3), now.minusDays(2), BookingStatus.APPROVED);
+        persistBooking(itemRef, bookerRef, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+        em.flush();
+
+        assertThat(bookingArchiver.archive(now.minusDays(10)), equalTo(1));
+        assertThat(bookingArchiver.archive(now.minusDays(10)), equalTo(0));
+        em.clear();
+
+        assertThat(em.find(Booking.class, old.getId()), nullValue());
+        List<BookingDtoOutput> past = bookingService.findAllForBooker(0, 10, booker.getId(), "PAST");
+        assertThat(past.size(), equalTo(2));
+        assertThat(past.get(1).getId(), equalTo(old.getId()));
+        assertThat(bookingService.findAllForOwner(0, 10, owner.getId(), "ALL").size(), equalTo(3));
+        assertThat(bookingService.findAllForBooker(0, 10, booker.getId(), "FUTURE").size(), equalTo(1));
+        assertThat(bookingService.getById(old.getId(), booker.getId()).getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(bookingService.countForOwner(owner.getId()), equalTo(new BookingCountsDto(3, 0, 2, 1, 1, 0)));
+        assertThat(bookingService.countForBooker(booker.getId()), equalTo(new BookingCountsDto(3, 0, 2, 1, 1, 0)));
+    }
+
+    private Booking persistBooking(Item item, User booker, LocalDateTime start, LocalDateTime end,
+                                BookingStatus status) {
+        Booking booking = new Booking(start, end, status);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        em.persist(booking);
+        return booking;
+    }
 }
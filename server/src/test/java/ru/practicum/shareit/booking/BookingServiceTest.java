@@ -5,32 +5,60 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDtoForItem;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
+import ru.practicum.shareit.booking.events.BookingEventHub;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingLifecycle;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingStateCount;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.booking.timeline.ItemOccupancyIndex;
+import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.view.ItemViewService;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.retry.OptimisticRetry;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,9 +68,24 @@ public class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Mock
     private ItemRepository itemRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserExistenceCache userExistenceCache;
+    @Mock
+    private ItemViewService itemViewService;
+    @Mock
+    private BookingTimelineCache bookingTimelineCache;
+    @Mock
+    private ItemOccupancyIndex itemOccupancyIndex;
+    @Mock
+    private BookingEventHub bookingEventHub;
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), 1, Duration.ZERO);
 
     User user = new User(1L,
             "name",
@@ -97,7 +140,7 @@ public class BookingServiceTest {
     public void saveUser() {
         booking.setItem(item);
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(anyLong())).thenReturn(user);
         when(bookingRepository.save(any())).thenReturn(booking);
 
         BookingDtoOutput bookingDtoOutput = bookingService.save(bookingDtoInput, booker.getId());
@@ -140,6 +183,8 @@ public class BookingServiceTest {
 
     @Test
     public void saveBookingWithNotExistUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + 2L + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(2L);
         when(itemRepository.findById(anyLong())).thenReturn(
                 Optional.of(item));
 
@@ -157,8 +202,7 @@ public class BookingServiceTest {
         when(itemRepository.findById(anyLong())).thenReturn(
                 Optional.of(new Item(1L, "name", "desc", false,
                         new User(1L, "name", "email@ya.ru"), new ItemRequest("desc"))));
-        when(userRepository.findById(anyLong()))
-                .thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(anyLong())).thenReturn(user);
 
         ValidationException validationException = assertThrows(ValidationException.class, () ->
                 bookingService.save(bookingDtoInput, 2L));
@@ -167,18 +211,43 @@ public class BookingServiceTest {
                 validationException.getMessage());
     }
 
+    @Test
+    public void saveBookingOverlappingApproved() {
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(userRepository.getReferenceById(anyLong())).thenReturn(booker);
+        when(bookingRepository.existsOverlapping(anyLong(), any(), any(), any(), anyLong())).thenReturn(true);
+
+        AlreadyExistsException exception = assertThrows(AlreadyExistsException.class, () ->
+                bookingService.save(bookingDtoInput, booker.getId()));
+
+        assertEquals("Вещь уже забронирована на пересекающийся период.", exception.getMessage());
+        verify(itemRepository, never()).touchAllByIdIn(any());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    public void approveBookingOverlappingApproved() {
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+        when(bookingRepository.existsOverlapping(item.getId(), booking.getStart(), booking.getEnd(),
+                BookingStatus.APPROVED, booking.getId())).thenReturn(true);
+
+        assertThrows(AlreadyExistsException.class, () -> bookingService.approve(1L, 1L, true));
+        assertEquals(booking.getStatus(), BookingStatus.WAITING);
+        verify(itemRepository).touchAllByIdIn(List.of(item.getId()));
+    }
+
     @Test
     public void approveWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + 1L + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(1L);
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
                 bookingService.approve(1L, 1L, true));
 
-        assertEquals("пользователя c идентификатором " + 1 + " не существует.", notFoundException.getMessage());
+        assertEquals("Пользователя c идентификатором " + 1L + " не существует.", notFoundException.getMessage());
     }
 
     @Test
     public void approveWithWrongBooking() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
                 bookingService.approve(1L, 1L, true));
 
@@ -187,7 +256,6 @@ public class BookingServiceTest {
 
     @Test
     public void approveWithWrongUser() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
 
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
@@ -201,7 +269,6 @@ public class BookingServiceTest {
     public void approveWithAlreadyApproveStatus() {
         booking.setStatus(BookingStatus.APPROVED);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
 
         ValidationException validationException = assertThrows(ValidationException.class, () ->
@@ -210,13 +277,25 @@ public class BookingServiceTest {
         assertEquals("Статус бронирования уже подтверждён.", validationException.getMessage());
     }
 
+    @Test
+    public void approveAlreadyRejectedBooking() {
+        booking.setStatus(BookingStatus.REJECTED);
+
+        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
+
+        AlreadyExistsException exception = assertThrows(AlreadyExistsException.class, () ->
+                bookingService.approve(1L, 1L, true));
+
+        assertEquals("Решение по бронированию уже принято.", exception.getMessage());
+        verify(bookingRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     public void approveBooking() {
         booking.setStatus(BookingStatus.WAITING);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(any())).thenReturn(booking);
+        when(bookingRepository.saveAndFlush(any())).thenReturn(booking);
 
         BookingDtoOutput booking1 = bookingService.approve(1L, 1L, true);
 
@@ -224,14 +303,85 @@ public class BookingServiceTest {
         assertEquals(booking1.getStart(), booking.getStart());
         assertEquals(booking1.getEnd(), booking.getEnd());
         assertEquals(booking1.getStatus(), booking.getStatus());
+        verify(bookingEventHub).publish(booking1, booking.getItem().getOwner().getId());
+    }
+
+    @Test
+    public void approveAll() {
+        Booking foreign = new Booking(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                BookingStatus.WAITING);
+        foreign.setId(3L);
+        foreign.setItem(new Item(3L, "item3", "desc3", true, booker, null));
+        foreign.setBooker(user);
+        when(bookingRepository.findAllWithItemByIdIn(any())).thenReturn(List.of(booking, booking2, foreign));
+
+        List<BookingDecisionResultDto> results = bookingService.approveAll(user.getId(), List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, false),
+                new BookingDecisionDto(3L, true),
+                new BookingDecisionDto(99L, true),
+                new BookingDecisionDto(1L, false)));
+
+        assertEquals(results.size(), 5);
+        assertEquals(results.get(0).getStatus(), BookingStatus.APPROVED);
+        assertEquals(results.get(1).getStatus(), BookingStatus.REJECTED);
+        assertEquals(results.get(2).getError(), "Подтверждение или отклонение запроса на бронирование может быть " +
+                "выполнено только владельцем вещи.");
+        assertEquals(results.get(3).getError(), "Такого бронирования не существует.");
+        assertEquals(results.get(4).getError(), "Решение по бронированию уже указано в этом запросе.");
+        assertEquals(foreign.getStatus(), BookingStatus.WAITING);
+        verify(bookingRepository).saveAll(List.of(booking, booking2));
+        verify(itemRepository).touchAllByIdIn(Set.of(item.getId()));
+    }
+
+    @Test
+    public void approveAllRejectsOverlapWithinBatch() {
+        booking2.setItem(item);
+        when(bookingRepository.findAllWithItemByIdIn(any())).thenReturn(List.of(booking, booking2));
+
+        List<BookingDecisionResultDto> results = bookingService.approveAll(user.getId(), List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, true)));
+
+        assertEquals(results.get(0).getStatus(), BookingStatus.APPROVED);
+        assertEquals(results.get(1).getError(), "Вещь уже забронирована на пересекающийся период.");
+        assertEquals(booking2.getStatus(), BookingStatus.WAITING);
+    }
+
+    @Test
+    public void approveAllReportsConstraintViolationPerBooking() {
+        when(bookingRepository.findAllWithItemByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return Stream.of(booking, booking2)
+                    .filter(stored -> ids.contains(stored.getId()))
+                    .map(this::copy)
+                    .collect(Collectors.toList());
+        });
+        doThrow(new DataIntegrityViolationException("overlap"))
+                .doNothing()
+                .doThrow(new DataIntegrityViolationException("overlap"))
+                .when(bookingRepository).flush();
+
+        List<BookingDecisionResultDto> results = bookingService.approveAll(user.getId(), List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, true),
+                new BookingDecisionDto(1L, false)));
+
+        assertEquals(results.size(), 3);
+        assertEquals(results.get(0).getStatus(), BookingStatus.APPROVED);
+        assertEquals(results.get(1).getError(), "Вещь уже забронирована на пересекающийся период.");
+        assertEquals(results.get(2).getError(), "Решение по бронированию уже указано в этом запросе.");
+        verify(bookingRepository, times(3)).flush();
     }
 
     @Test
     public void getByIdWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + 1L + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(1L);
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
                 bookingService.getById(1L, 1L));
 
-        assertEquals("пользователя c идентификатором " + 1 + " не существует.",
+        assertEquals("Пользователя c идентификатором " + 1L + " не существует.",
                 notFoundException.getMessage());
     }
 
@@ -239,7 +389,6 @@ public class BookingServiceTest {
     public void getNotFoundBooking() {
         booking.setStatus(BookingStatus.WAITING);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
@@ -254,7 +403,6 @@ public class BookingServiceTest {
     public void getBookingById() {
         booking.setStatus(BookingStatus.WAITING);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(booking));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
@@ -268,10 +416,12 @@ public class BookingServiceTest {
 
     @Test
     public void findAllForBookingWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + booker.getId() + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(booker.getId());
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
                 bookingService.findAllForBooker(0, 20, booker.getId(), "ALL"));
 
-        assertEquals("пользователя c идентификатором " + booker.getId() + " не существует.",
+        assertEquals("Пользователя c идентификатором " + booker.getId() + " не существует.",
                 notFoundException.getMessage());
     }
 
@@ -280,9 +430,8 @@ public class BookingServiceTest {
         booking.setStatus(BookingStatus.WAITING);
         booking2.setStatus(BookingStatus.WAITING);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
 
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(anyLong(), any()))
+        when(bookingRepository.findPage(any(), any()))
                 .thenReturn(List.of(booking2, booking));
 
         List<BookingDtoOutput> bookings = bookingService.findAllForBooker(0, 20, user.getId(), "ALL");
@@ -290,10 +439,33 @@ public class BookingServiceTest {
         assertEquals(bookings.size(), 2);
     }
 
+    @Test
+    public void findAllForBookingAfterCursor() {
+        when(bookingRepository.findPage(any(), any()))
+                .thenReturn(List.of(booking));
+
+        List<BookingDtoOutput> bookings = bookingService.findAllForBookerAfter(
+                Cursor.of(booking2.getStart(), booking2.getId()), 20, booker.getId(), "ALL");
+
+        assertEquals(bookings.size(), 1);
+        assertEquals(bookings.get(0).getId(), booking.getId());
+    }
+
+    @Test
+    public void countForBookerMergesArchive() {
+        when(bookingRepository.countByBookerId(booker.getId())).thenReturn(List.of(
+                new BookingStateCount(BookingLifecycle.UPCOMING, BookingStatus.WAITING, 2),
+                new BookingStateCount(BookingLifecycle.ACTIVE, BookingStatus.APPROVED, 1),
+                new BookingStateCount(BookingLifecycle.FINISHED, BookingStatus.REJECTED, 1)));
+        when(archivedBookingRepository.countByBookerId(booker.getId())).thenReturn(List.of(
+                new BookingStateCount(BookingLifecycle.FINISHED, BookingStatus.APPROVED, 3)));
+
+        assertEquals(new BookingCountsDto(7, 1, 4, 2, 2, 1), bookingService.countForBooker(booker.getId()));
+    }
+
     @Test
     public void findAllForOwnerWithWrongUser() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn(new ArrayList<>());
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(false);
 
         ValidationException validationException = assertThrows(ValidationException.class, () ->
                 bookingService.findAllForOwner(0, 20, booker.getId(), "ALL"));
@@ -302,15 +474,26 @@ public class BookingServiceTest {
                 validationException.getMessage());
     }
 
+    @Test
+    public void findAllForOwnerAfterWithWrongUser() {
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(false);
+
+        ValidationException validationException = assertThrows(ValidationException.class, () ->
+                bookingService.findAllForOwnerAfter(null, 20, booker.getId(), "ALL"));
+
+        assertEquals("Вы не можете получить список бронирований, так как у вас нет вещей.",
+                validationException.getMessage());
+        verify(bookingRepository, never()).findPage(any(), any());
+    }
+
     @Test
     public void findAllForOwner() {
         booking.setStatus(BookingStatus.WAITING);
         booking2.setStatus(BookingStatus.WAITING);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn((List.of(item, item2)));
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(true);
 
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+        when(bookingRepository.findPage(any(), any()))
                 .thenReturn(List.of(booking2, booking));
 
         List<BookingDtoOutput> bookings = bookingService.findAllForOwner(0, 20, user.getId(), "ALL");
@@ -323,9 +506,8 @@ public class BookingServiceTest {
         booking.setStatus(BookingStatus.WAITING);
         booking2.setStatus(BookingStatus.WAITING);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn((List.of(item, item2)));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(true);
+        when(bookingRepository.findPage(any(), any()))
                 .thenReturn(List.of(booking, booking2));
 
         List<BookingDtoOutput> bookings = bookingService
@@ -339,9 +521,8 @@ public class BookingServiceTest {
         booking.setStatus(BookingStatus.REJECTED);
         booking2.setStatus(BookingStatus.REJECTED);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn((List.of(item, item2)));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(true);
+        when(bookingRepository.findPage(any(), any()))
                 .thenReturn(List.of(booking, booking2));
 
         List<BookingDtoOutput> bookings = bookingService
@@ -355,9 +536,8 @@ public class BookingServiceTest {
         booking.setStatus(BookingStatus.REJECTED);
         booking2.setStatus(BookingStatus.REJECTED);
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn((List.of(item, item2)));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(true);
+        when(bookingRepository.findPage(any(), any()))
                 .thenReturn(List.of(booking, booking2));
 
         List<BookingDtoOutput> bookings = bookingService
@@ -373,9 +553,8 @@ public class BookingServiceTest {
         booking2.setStatus(BookingStatus.APPROVED);
         booking2.setStart(LocalDateTime.now().plusDays(1));
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn((List.of(item, item2)));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(true);
+        when(bookingRepository.findPage(any(), any()))
                 .thenReturn(List.of(booking, booking2));
 
         List<BookingDtoOutput> bookings = bookingService
@@ -391,9 +570,8 @@ public class BookingServiceTest {
         booking2.setStatus(BookingStatus.APPROVED);
         booking2.setEnd(LocalDateTime.now().minusDays(1));
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn((List.of(item, item2)));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(true);
+        when(bookingRepository.findPage(any(), any()))
                 .thenReturn(List.of(booking, booking2));
 
         List<BookingDtoOutput> bookings = bookingService
@@ -411,9 +589,8 @@ public class BookingServiceTest {
         booking2.setStart(LocalDateTime.now().minusDays(1));
         booking2.setEnd(LocalDateTime.now().plusDays(1));
 
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(booker));
-        when(itemRepository.findAllByOwnerId(anyLong())).thenReturn((List.of(item, item2)));
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(anyLong(), any()))
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(true);
+        when(bookingRepository.findPage(any(), any()))
                 .thenReturn(List.of(booking, booking2));
 
         List<BookingDtoOutput> bookings = bookingService
@@ -426,9 +603,17 @@ public class BookingServiceTest {
     public void bookingMapperTest() {
         booking.setStatus(BookingStatus.WAITING);
 
-        BookingDtoForItem bookingDtoForItem = BookingMapper.toBookingDtoForItem(booking);
+        BookingDtoForItem bookingDtoForItem = BookingMapper.toBookingDtoForItem(BookingSlot.of(booking));
 
         assertEquals(bookingDtoForItem.getId(), booking.getId());
         assertEquals(bookingDtoForItem.getBookerId(), booking.getBooker().getId());
     }
+
+    private Booking copy(Booking stored) {
+        Booking copy = new Booking(stored.getStart(), stored.getEnd(), stored.getStatus());
+        copy.setId(stored.getId());
+        copy.setItem(stored.getItem());
+        copy.setBooker(stored.getBooker());
+        return copy;
+    }
 }
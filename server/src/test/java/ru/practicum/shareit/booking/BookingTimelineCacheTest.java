@@ -0,0 +1,144 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.booking.timeline.ItemBookingTimeline;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookingTimelineCacheTest {
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 10, 12, 0);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final User booker = new User(2L, "booker", "booker@ya.ru");
+    private final Item item = new Item(1L, "item", "desc", true, null, null);
+
+    private BookingTimelineCache bookingTimelineCache;
+
+    @BeforeEach
+    void setUp() {
+        bookingTimelineCache = new BookingTimelineCache(bookingRepository, mock(ArchivedBookingRepository.class), 2,
+                Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void lastNextAndCurrent() {
+        ItemBookingTimeline timeline = new ItemBookingTimeline(List.of(
+                slot(1L, now.minusDays(5), now.minusDays(3), BookingStatus.APPROVED),
+                slot(2L, now.minusDays(4), now.minusDays(1), BookingStatus.REJECTED),
+                slot(3L, now.minusHours(2), now.plusHours(2), BookingStatus.APPROVED),
+                slot(4L, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING),
+                slot(5L, now.plusDays(3), now.plusDays(4), BookingStatus.APPROVED)));
+
+        assertEquals(2L, timeline.last(now).orElseThrow().getId());
+        assertEquals(4L, timeline.next(now).orElseThrow().getId());
+        assertEquals(now.plusHours(2), timeline.currentEnd(now).orElseThrow());
+        assertFalse(timeline.currentEnd(now.plusDays(2).plusHours(1)).isPresent());
+    }
+
+    @Test
+    public void overlapsApprovedOnly() {
+        ItemBookingTimeline timeline = new ItemBookingTimeline(List.of(
+                slot(1L, now, now.plusDays(2), BookingStatus.APPROVED),
+                slot(2L, now.plusDays(3), now.plusDays(4), BookingStatus.WAITING)));
+
+        assertTrue(timeline.overlapsApproved(now.plusDays(1), now.plusDays(5), 0L));
+        assertFalse(timeline.overlapsApproved(now.plusDays(2), now.plusDays(5), 0L));
+        assertFalse(timeline.overlapsApproved(now.minusDays(1), now, 0L));
+        assertFalse(timeline.overlapsApproved(now, now.plusDays(2), 1L));
+    }
+
+    @Test
+    public void loadsOnceAndKeepsCurrentOnRecord() {
+        when(bookingRepository.findSlotsByItemIdIn(any())).thenReturn(List.of());
+        assertFalse(bookingTimelineCache.get(item.getId()).overlapsApproved(now, now.plusDays(1), 0L));
+
+        bookingTimelineCache.record(booking(7L, BookingStatus.APPROVED));
+
+        assertTrue(bookingTimelineCache.get(item.getId()).overlapsApproved(now, now.plusDays(1), 0L));
+        verify(bookingRepository, times(1)).findSlotsByItemIdIn(any());
+    }
+
+    @Test
+    public void recordIsAppliedOnlyAfterCommit() {
+        when(bookingRepository.findSlotsByItemIdIn(any())).thenReturn(List.of());
+        bookingTimelineCache.get(item.getId());
+        TransactionSynchronizationManager.initSynchronization();
+
+        bookingTimelineCache.record(booking(7L, BookingStatus.APPROVED));
+
+        assertFalse(bookingTimelineCache.get(item.getId()).overlapsApproved(now, now.plusDays(1), 0L));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertTrue(bookingTimelineCache.get(item.getId()).overlapsApproved(now, now.plusDays(1), 0L));
+        verify(bookingRepository, times(1)).findSlotsByItemIdIn(any());
+    }
+
+    @Test
+    public void expiredTimelineIsReloaded() {
+        bookingTimelineCache = new BookingTimelineCache(bookingRepository, mock(ArchivedBookingRepository.class), 2,
+                Duration.ZERO, new SimpleMeterRegistry());
+        when(bookingRepository.findSlotsByItemIdIn(any())).thenReturn(List.of(),
+                List.of(slot(7L, now, now.plusDays(1), BookingStatus.APPROVED)));
+
+        assertFalse(bookingTimelineCache.get(item.getId()).overlapsApproved(now, now.plusDays(1), 0L));
+
+        assertTrue(bookingTimelineCache.get(item.getId()).overlapsApproved(now, now.plusDays(1), 0L));
+        verify(bookingRepository, times(2)).findSlotsByItemIdIn(any());
+    }
+
+    @Test
+    public void coldItemsAreEvicted() {
+        when(bookingRepository.findSlotsByItemIdIn(any())).thenReturn(List.of());
+
+        bookingTimelineCache.getAll(List.of(1L, 2L));
+        bookingTimelineCache.get(1L);
+        bookingTimelineCache.get(3L);
+        bookingTimelineCache.get(1L);
+
+        assertEquals(2, bookingTimelineCache.size());
+        verify(bookingRepository, times(2)).findSlotsByItemIdIn(any());
+    }
+
+    private BookingSlot slot(long id, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return new BookingSlot(id, item.getId(), booker.getId(), start, end, status);
+    }
+
+    private Booking booking(long id, BookingStatus status) {
+        Booking booking = new Booking(now, now.plusDays(1), status);
+        booking.setId(id);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        return booking;
+    }
+}
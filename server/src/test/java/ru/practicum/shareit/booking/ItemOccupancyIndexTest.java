@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
+import ru.practicum.shareit.booking.timeline.ItemOccupancyIndex;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ItemOccupancyIndexTest {
+    private final LocalDateTime today = LocalDate.now().atStartOfDay();
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final User booker = new User(2L, "booker", "booker@ya.ru");
+
+    private ItemOccupancyIndex itemOccupancyIndex;
+
+    @BeforeEach
+    void setUp() {
+        itemOccupancyIndex = new ItemOccupancyIndex(bookingRepository, 1);
+        when(bookingRepository.findSlotsByStatusInAndOverlapping(any(), any(), any())).thenReturn(List.of(
+                new BookingSlot(1L, 1L, booker.getId(), today.plusDays(2).plusHours(10),
+                        today.plusDays(4).plusHours(10), BookingStatus.APPROVED),
+                new BookingSlot(2L, 2L, booker.getId(), today.plusDays(5), today.plusDays(6), BookingStatus.WAITING)));
+        itemOccupancyIndex.rebuild();
+    }
+
+    @Test
+    public void coversOnlyHorizon() {
+        assertTrue(itemOccupancyIndex.covers(today.plusHours(1), today.plusDays(20)));
+        assertFalse(itemOccupancyIndex.covers(today.minusDays(1), today.plusDays(1)));
+        assertFalse(itemOccupancyIndex.covers(today, today.plusMonths(2)));
+    }
+
+    @Test
+    public void innerDayMeansOccupied() {
+        assertEquals(Set.of(2L, 3L), itemOccupancyIndex.findFree(List.of(1L, 2L, 3L),
+                today.plusDays(1), today.plusDays(5)));
+    }
+
+    @Test
+    public void boundaryDaysCheckedPrecisely() {
+        assertEquals(Set.of(1L, 2L), itemOccupancyIndex.findFree(List.of(1L, 2L),
+                today.plusDays(4).plusHours(12), today.plusDays(5)));
+        assertEquals(Set.of(2L), itemOccupancyIndex.findFree(List.of(1L, 2L),
+                today.plusDays(4).plusHours(9), today.plusDays(5)));
+        assertEquals(Set.of(1L), itemOccupancyIndex.findFree(List.of(1L, 2L),
+                today.plusDays(5).plusHours(1), today.plusDays(5).plusHours(2)));
+    }
+
+    @Test
+    public void recordedChangesApply() {
+        itemOccupancyIndex.record(booking(3L, 3L, BookingStatus.WAITING));
+        itemOccupancyIndex.record(booking(2L, 2L, BookingStatus.REJECTED));
+
+        assertEquals(Set.of(2L), itemOccupancyIndex.findFree(List.of(2L, 3L),
+                today.plusDays(5), today.plusDays(7)));
+    }
+
+    private Booking booking(long id, long itemId, BookingStatus status) {
+        Booking booking = new Booking(today.plusDays(5), today.plusDays(7), status);
+        booking.setId(id);
+        booking.setItem(new Item(itemId, "item", "desc", true, null, null));
+        booking.setBooker(booker);
+        return booking;
+    }
+}
@@ -7,26 +7,42 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.comment.CommentDtoOutput;
 import ru.practicum.shareit.item.controller.ItemController;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemExportService;
+import ru.practicum.shareit.item.service.ItemImportService;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
@@ -35,6 +51,12 @@ public class ItemControllerTest {
     private ObjectMapper mapper;
     @MockBean
     private ItemService itemService;
+    @MockBean
+    private ItemImportService itemImportService;
+    @MockBean
+    private ItemExportService itemExportService;
+    @MockBean
+    private UserExistenceCache userExistenceCache;
     @Autowired
     private MockMvc mvc;
 
@@ -100,6 +122,75 @@ public class ItemControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void importItems() throws Exception {
+        when(itemImportService.importItems(any(), anyLong()))
+                .thenReturn(List.of(ItemImportResultDto.imported(0, 1L), ItemImportResultDto.imported(1, 2L)));
+
+        mvc.perform(post("/items/batch")
+                        .content(mapper.writeValueAsString(
+                                List.of(ItemMapper.toItemDto(item), ItemMapper.toItemDto(item2))))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$.[1].id", is(2L), Long.class));
+    }
+
+    @Test
+    public void importItemsFromNdJson() throws Exception {
+        when(itemImportService.importItems(any(), anyLong())).thenAnswer(invocation -> {
+            Iterator<ItemDto> items = invocation.getArgument(0);
+            List<ItemImportResultDto> results = new ArrayList<>();
+            int index = 0;
+            while (items.hasNext()) {
+                try {
+                    results.add(ItemImportResultDto.imported(index, items.next().getId()));
+                } catch (ValidationException e) {
+                    results.add(ItemImportResultDto.failed(index, e.getMessage()));
+                }
+                index++;
+            }
+            return results;
+        });
+
+        mvc.perform(post("/items/batch")
+                        .content(mapper.writeValueAsString(ItemMapper.toItemDto(item)) + "\n\n{broken\n"
+                                + mapper.writeValueAsString(ItemMapper.toItemDto(item3)) + "\n")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$.[0].id", is(item.getId()), Long.class))
+                .andExpect(jsonPath("$.[1].error").isNotEmpty())
+                .andExpect(jsonPath("$.[2].id", is(item3.getId()), Long.class));
+    }
+
+    @Test
+    public void exportItems() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ItemDto> consumer = invocation.getArgument(1);
+            consumer.accept(ItemMapper.toItemDto(item));
+            consumer.accept(ItemMapper.toItemDto(item2));
+            return null;
+        }).when(itemExportService).exportItems(eq(1L), any());
+
+        MvcResult result = mvc.perform(get("/items/export")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(mapper.writeValueAsString(ItemMapper.toItemDto(item)) + "\n"
+                        + mapper.writeValueAsString(ItemMapper.toItemDto(item2)) + "\n"));
+    }
+
     @Test
     public void updateItem() throws Exception {
         when(itemService.update(any(), anyLong(), anyLong()))
@@ -197,6 +288,59 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[2].id", is(item3.getId()), Long.class));
     }
 
+    @Test
+    public void searchAvailableItems() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 10, 12, 0);
+        when(itemService.searchAvailable("item", start, start.plusDays(2), 0, 20))
+                .thenReturn(List.of(ItemMapper.toItemDto(item2)));
+
+        mvc.perform(get("/items/search/available")
+                        .param("text", "item")
+                        .param("start", "2030-01-10T12:00:00")
+                        .param("end", "2030-01-12T12:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id", is(item2.getId()), Long.class));
+    }
+
+    @Test
+    public void getRequestMatches() throws Exception {
+        when(itemService.getRequestMatches(1L, 1L))
+                .thenReturn(List.of(new ItemRequestDtoOutput(5L, "Нужна дрель", LocalDateTime.now())));
+
+        mvc.perform(get("/items/1/request-matches")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id", is(5L), Long.class));
+    }
+
+    @Test
+    public void suggestItems() throws Exception {
+        when(itemService.suggest("ite", 2)).thenReturn(List.of("item", "item2"));
+
+        mvc.perform(get("/items/suggest")
+                        .param("prefix", "ite")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0]", is("item")));
+    }
+
+    @Test
+    public void getComments() throws Exception {
+        when(itemService.getComments(anyLong(), any(), anyInt())).thenReturn(List.of(comment));
+
+        mvc.perform(get("/items/" + 1L + "/comments")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Cursor.NEXT_CURSOR_HEADER,
+                        Cursor.of(comment.getCreated(), comment.getId()).encode()))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id", is(comment.getId()), Long.class));
+    }
+
     @Test
     public void addComment() throws Exception {
         when(itemService.addComment(anyLong(), anyLong(), any())).thenReturn(comment);
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.item;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemSearchCacheTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ItemDto drill = new ItemDto(1L, "Дрель", "Простая дрель", true, 0);
+    private final ItemDto saw = new ItemDto(2L, "Пила", "Ножовка", true, 0);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<ItemDto> load() {
+        loads.incrementAndGet();
+        return List.of(drill);
+    }
+
+    private double count(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    public void cachesByNormalizedTextAndPage() {
+        ItemSearchCache cache = new ItemSearchCache(10, Duration.ofMinutes(1), meterRegistry);
+
+        cache.get("ДРЕЛЬ", 0, 20, this::load);
+        cache.get("дрель", 5, 20, this::load);
+        cache.get("дрель", 20, 20, this::load);
+
+        assertEquals(loads.get(), 2);
+        assertEquals(count("shareit.search.cache.requests", "result", "hit"), 1);
+        assertEquals(count("shareit.search.cache.requests", "result", "miss"), 2);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedAndExpired() {
+        ItemSearchCache cache = new ItemSearchCache(2, Duration.ofMinutes(1), meterRegistry);
+
+        cache.get("a", 0, 20, this::load);
+        cache.get("b", 0, 20, this::load);
+        cache.get("a", 0, 20, this::load);
+        cache.get("c", 0, 20, this::load);
+        cache.get("a", 0, 20, this::load);
+
+        assertEquals(loads.get(), 3);
+        assertEquals(cache.size(), 2);
+        assertEquals(count("shareit.search.cache.evictions", "cause", "size"), 1);
+
+        ItemSearchCache expiring = new ItemSearchCache(2, Duration.ZERO, meterRegistry);
+        expiring.get("a", 0, 20, this::load);
+        expiring.get("a", 0, 20, this::load);
+
+        assertEquals(loads.get(), 5);
+        assertEquals(count("shareit.search.cache.evictions", "cause", "expired"), 1);
+    }
+
+    @Test
+    public void invalidatesOnlyMatchingQueries() {
+        ItemSearchCache cache = new ItemSearchCache(10, Duration.ofMinutes(1), meterRegistry);
+        cache.get("дрель", 0, 20, this::load);
+        cache.get("пила", 0, 20, this::load);
+
+        cache.invalidate(saw, new ItemDto(2L, "Пила", "Ножовка", true, 0));
+        assertEquals(cache.size(), 2);
+
+        cache.invalidate(saw, new ItemDto(2L, "Пила", "Ножовка", false, 0));
+        assertEquals(cache.size(), 1);
+
+        cache.invalidate(null, new ItemDto(3L, "Ударная ДРЕЛЬ", "", true, 0));
+        assertEquals(cache.size(), 0);
+    }
+}
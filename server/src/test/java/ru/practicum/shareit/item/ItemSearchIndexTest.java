@@ -0,0 +1,86 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.SearchMode;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemSearchIndex itemSearchIndex;
+
+    private final User user = new User(1L, "user", "user@ya.ru");
+
+    @BeforeEach
+    void setUp() {
+        itemSearchIndex = new ItemSearchIndex(itemRepository, SearchMode.INDEX);
+    }
+
+    @Test
+    public void rebuildIndexesOnlyAvailableItems() {
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(
+                List.of(new Item(1L, "Дрель", "Простая дрель", true, user, null),
+                        new Item(2L, "Дрель ударная", "Мощная", false, user, null))));
+
+        itemSearchIndex.rebuild();
+        List<ItemDto> items = itemSearchIndex.search("дРЕль", 0, 20);
+
+        assertEquals(items.size(), 1);
+        assertEquals(items.get(0).getId(), 1L);
+    }
+
+    @Test
+    public void searchBySubstringOfNameOrDescription() {
+        itemSearchIndex.index(new ItemDto(1L, "Отвертка", "Аккумуляторная отвертка", true, 0));
+        itemSearchIndex.index(new ItemDto(2L, "Щётка", "Для обуви", true, 0));
+
+        assertEquals(itemSearchIndex.search("аккумулятор", 0, 20).size(), 1);
+        assertEquals(itemSearchIndex.search("ТКА", 0, 20).size(), 2);
+        assertEquals(itemSearchIndex.search("ная отв", 0, 20).size(), 1);
+        assertEquals(itemSearchIndex.search("пила", 0, 20).size(), 0);
+    }
+
+    @Test
+    public void updateReplacesIndexedItem() {
+        itemSearchIndex.index(new ItemDto(1L, "Отвертка", "Крестовая", true, 0));
+        itemSearchIndex.index(new ItemDto(1L, "Молоток", "Крестовая", true, 0));
+
+        assertEquals(itemSearchIndex.search("отвертка", 0, 20).size(), 0);
+        assertEquals(itemSearchIndex.search("молоток", 0, 20).size(), 1);
+
+        itemSearchIndex.index(new ItemDto(1L, "Молоток", "Крестовая", false, 0));
+
+        assertEquals(itemSearchIndex.search("молоток", 0, 20).size(), 0);
+    }
+
+    @Test
+    public void searchWithPaging() {
+        for (long id = 1; id <= 5; id++) {
+            itemSearchIndex.index(new ItemDto(id, "item" + id, "desc", true, 0));
+        }
+
+        List<ItemDto> items = itemSearchIndex.search("item", 2, 2);
+
+        assertEquals(items.size(), 2);
+        assertEquals(items.get(0).getId(), 3L);
+        assertEquals(items.get(1).getId(), 4L);
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.transaction.TestTransaction;
 import ru.practicum.shareit.booking.dto.BookingDtoInput;
 import ru.practicum.shareit.booking.dto.BookingDtoOutput;
 import ru.practicum.shareit.booking.service.BookingService;
@@ -12,22 +13,31 @@ import ru.practicum.shareit.item.comment.Comment;
 import ru.practicum.shareit.item.comment.CommentDtoOutput;
 import ru.practicum.shareit.item.comment.CommentRepository;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemExportService;
+import ru.practicum.shareit.item.service.ItemImportService;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.view.ItemView;
+import ru.practicum.shareit.item.view.ItemViewService;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
@@ -41,9 +51,12 @@ import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER
 public class ItemServiceImplIntegrationTest {
     private final EntityManager em;
     private final ItemService itemService;
+    private final ItemImportService itemImportService;
+    private final ItemExportService itemExportService;
     private final UserService userService;
     private final BookingService bookingService;
     private final CommentRepository commentRepository;
+    private final ItemViewService itemViewService;
 
     private final UserDto userDto = new UserDto(1,
             "user",
@@ -121,6 +134,11 @@ public class ItemServiceImplIntegrationTest {
         assertThat(item1.getName(), equalTo(newItem.getName()));
         assertThat(item1.getDescription(), equalTo(newItem.getDescription()));
         assertThat(item1.getAvailable(), equalTo(newItem.getAvailable()));
+        assertTrue(itemService.suggest("upd", 10).isEmpty());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertThat(itemService.suggest("upd", 10), equalTo(List.of("updateItem")));
+        assertTrue(itemService.suggest("item", 10).isEmpty());
     }
 
     @Test
@@ -136,6 +154,40 @@ public class ItemServiceImplIntegrationTest {
         assertTrue(itemDtoSearch.contains(itemDto2));
     }
 
+    @Test
+    public void searchAvailableBeyondOccupancyHorizon() {
+        UserDto createUser = userService.add(userDto);
+        UserDto booker = userService.add(new UserDto(2L, "name2", "email2@ya.ru"));
+        itemService.create(itemDto, createUser.getId());
+        itemService.create(itemDto2, createUser.getId());
+        LocalDateTime start = LocalDateTime.now().plusYears(2).truncatedTo(ChronoUnit.MICROS);
+        bookingService.save(new BookingDtoInput(itemDto.getId(), start, start.plusDays(2)), booker.getId());
+
+        List<ItemDto> overlapping = itemService.searchAvailable("item", start.plusDays(1), start.plusDays(3), 0, 20);
+        List<ItemDto> after = itemService.searchAvailable("item", start.plusDays(2), start.plusDays(3), 0, 20);
+
+        assertThat(overlapping, equalTo(List.of(itemDto2)));
+        assertThat(after.size(), equalTo(2));
+    }
+
+    @Test
+    public void bookingIsShownOnItemCard() {
+        UserDto owner = userService.add(userDto);
+        UserDto booker = userService.add(new UserDto(2L, "name2", "email2@ya.ru"));
+        ItemDto item = itemService.create(itemDto, owner.getId());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertThat(itemService.getById(item.getId(), owner.getId()).getNextBooking(), nullValue());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MICROS);
+        BookingDtoOutput booking = bookingService.save(new BookingDtoInput(item.getId(), start, start.plusDays(1)),
+                booker.getId());
+
+        ItemOutputDto card = itemService.getById(item.getId(), owner.getId());
+        assertThat(card.getNextBooking().getId(), equalTo(booking.getId()));
+        assertThat(card.getNextBooking().getBookerId(), equalTo(booker.getId()));
+    }
+
     @Test
     public void addComment() {
         UserDto createUser = userService.add(userDto);
@@ -157,11 +209,85 @@ public class ItemServiceImplIntegrationTest {
         comment.setAuthor(UserMapper.toUser(userDto2));
 
         commentRepository.save(comment);
+        itemViewService.refresh(itemDto.getId());
 
         List<CommentDtoOutput> comments = itemService.getById(itemDto.getId(), userDto.getId())
                 .getComments();
 
         assertThat(comments.size(), equalTo(1));
         assertThat(comments.get(0).getText(), equalTo("text"));
+        assertThat(itemService.getComments(itemDto.getId(), null, 20).size(), equalTo(1));
+        assertThat(itemService.getAll(createUser.getId(), 0, 20).get(0).getComments().size(), equalTo(1));
+    }
+
+    @Test
+    public void recentCommentsAreLimitedPerItem() {
+        UserDto owner = userService.add(userDto);
+        UserDto author = userService.add(new UserDto(2L, "name2", "email2@ya.ru"));
+        ItemDto first = itemService.create(itemDto, owner.getId());
+        ItemDto second = itemService.create(itemDto2, owner.getId());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        for (int i = 0; i < 3; i++) {
+            for (ItemDto item : List.of(first, second)) {
+                Comment comment = new Comment("text" + i, now.plusMinutes(i));
+                comment.setItem(em.find(Item.class, item.getId()));
+                comment.setAuthor(em.find(User.class, author.getId()));
+                commentRepository.save(comment);
+            }
+        }
+
+        List<Comment> recent = commentRepository.findRecentByItemIdIn(List.of(first.getId(), second.getId()), 2);
+
+        assertThat(recent.size(), equalTo(4));
+        assertTrue(recent.stream().noneMatch(comment -> comment.getText().equals("text0")));
+        assertThat(recent.get(0).getAuthor().getName(), equalTo("name2"));
+    }
+
+    @Test
+    public void importItems() {
+        UserDto createUser = userService.add(userDto);
+        ItemDto withoutName = new ItemDto(0, " ", "description", true, 0);
+
+        List<ItemImportResultDto> results = itemImportService.importItems(
+                List.of(itemDto, withoutName, itemDto2).iterator(), createUser.getId());
+
+        assertThat(results.size(), equalTo(3));
+        assertThat(results.get(0).getError(), nullValue());
+        assertThat(results.get(1).getError(), notNullValue());
+        assertThat(results.get(2).getError(), nullValue());
+        List<ItemOutputDto> items = itemService.getAll(createUser.getId(), 0, 20);
+        assertThat(items.size(), equalTo(2));
+        assertThat(items.get(0).getId(), equalTo(results.get(0).getId()));
+        assertThat(items.get(1).getName(), equalTo(itemDto2.getName()));
+    }
+
+    @Test
+    public void importedItemsAreIndexedAfterCommit() {
+        UserDto createUser = userService.add(userDto);
+
+        List<ItemImportResultDto> results = itemImportService.importItems(List.of(itemDto).iterator(),
+                createUser.getId());
+
+        assertTrue(itemService.suggest("ite", 10).isEmpty());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        assertThat(itemService.suggest("ite", 10), equalTo(List.of("item")));
+        assertThat(em.find(ItemView.class, results.get(0).getId()).getName(), equalTo("item"));
+    }
+
+    @Test
+    public void exportItems() {
+        UserDto createUser = userService.add(userDto);
+        UserDto otherUser = userService.add(new UserDto(2L, "name2", "email2@ya.ru"));
+        itemService.create(itemDto, createUser.getId());
+        itemService.create(itemDto2, createUser.getId());
+        itemService.create(new ItemDto(3L, "other", "description", true, 0), otherUser.getId());
+
+        List<ItemDto> exported = new ArrayList<>();
+        itemExportService.exportItems(createUser.getId(), exported::add);
+
+        assertThat(exported.size(), equalTo(2));
+        assertThat(exported.get(0).getName(), equalTo(itemDto.getName()));
+        assertThat(exported.get(1).getName(), equalTo(itemDto2.getName()));
     }
 }
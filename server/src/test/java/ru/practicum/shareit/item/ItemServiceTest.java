@@ -2,12 +2,22 @@ package ru.practicum.shareit.item;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.booking.timeline.ItemBookingTimeline;
+import ru.practicum.shareit.booking.timeline.ItemOccupancyIndex;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.comment.*;
@@ -16,20 +26,45 @@ import ru.practicum.shareit.item.dto.ItemOutputDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.item.search.ItemSuggestIndex;
+import ru.practicum.shareit.item.search.SearchMode;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.view.ItemView;
+import ru.practicum.shareit.item.view.ItemViewService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.request.matching.ItemRequestMatchIndex;
+import ru.practicum.shareit.request.matching.RequestMatch;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.ItemRequestMatch;
+import ru.practicum.shareit.request.repository.ItemRequestMatchRepository;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.retry.OptimisticRetry;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,11 +76,36 @@ public class ItemServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserExistenceCache userExistenceCache;
+    @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Mock
     private CommentRepository commentRepository;
     @Mock
     private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemRequestMatchRepository itemRequestMatchRepository;
+    @Mock
+    private ItemRequestMatchIndex itemRequestMatchIndex;
+    @Mock
+    private ItemRequestFeed itemRequestFeed;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private ItemSearchCache itemSearchCache;
+    @Mock
+    private ItemViewService itemViewService;
+    @Mock
+    private BookingTimelineCache bookingTimelineCache;
+    @Mock
+    private ItemOccupancyIndex itemOccupancyIndex;
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), 1, Duration.ZERO);
+    @Mock
+    private ItemSuggestIndex itemSuggestIndex;
 
     private final User user = new User(1L,
             "user",
@@ -92,15 +152,16 @@ public class ItemServiceTest {
 
     @Test
     public void createItemWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + user.getId() + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(user.getId());
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> itemService.create(itemDto, user.getId()));
 
-        assertEquals("Пользователь c идентификатором " + user.getId() + " не найден.", exception.getMessage());
+        assertEquals("Пользователя c идентификатором " + user.getId() + " не существует.", exception.getMessage());
     }
 
     @Test
     public void createItem() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.of(itemRequest));
         when(itemRepository.save(any())).thenReturn(ItemMapper.toItem(itemDto));
 
@@ -109,19 +170,70 @@ public class ItemServiceTest {
         assertEquals(itemDtoSave.getId(), itemDto.getId());
     }
 
+    @Test
+    public void createItemForRequestClosesRequest() {
+        itemRequest.setId(5L);
+        when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.of(itemRequest));
+        when(itemRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        itemService.create(itemDto, user.getId());
+
+        verify(itemRequestMatchIndex).close(5L);
+        verify(itemRequestFeed).putItem(new ItemDto(1L, "item", "desc", true, 5L));
+        verify(itemRequestMatchIndex, never()).match(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void createItemSavesRequestMatches() {
+        itemRequest.setId(5L);
+        when(itemRequestRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(itemRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemRequestMatchIndex.match("item desc", user.getId(), 10)).thenReturn(List.of(new RequestMatch(5L, 2)));
+        when(itemRequestRepository.getReferenceById(5L)).thenReturn(itemRequest);
+
+        itemService.create(itemDto, user.getId());
+
+        ArgumentCaptor<List<ItemRequestMatch>> captor = ArgumentCaptor.forClass(List.class);
+        verify(itemRequestMatchRepository).saveAll(captor.capture());
+        assertEquals(captor.getValue().size(), 1);
+        assertEquals(captor.getValue().get(0).getRequest(), itemRequest);
+        assertEquals(captor.getValue().get(0).getScore(), 2);
+    }
+
+    @Test
+    public void getRequestMatches() {
+        itemRequest.setId(5L);
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(itemRequestMatchRepository.findRequestsByItemId(item.getId())).thenReturn(List.of(itemRequest));
+
+        List<ItemRequestDtoOutput> requests = itemService.getRequestMatches(item.getId(), user.getId());
+
+        assertEquals(requests.size(), 1);
+        assertEquals(requests.get(0).getId(), 5L);
+    }
+
+    @Test
+    public void getRequestMatchesByNotOwner() {
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> itemService.getRequestMatches(item.getId(), 2L));
+
+        assertEquals("Подходящие запросы для вещи может смотреть только её владелец.", exception.getMessage());
+    }
+
     @Test
     public void itemUpdateWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + user.getId() + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(user.getId());
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> itemService.update(itemDto, itemDto.getId(), user.getId()));
 
-        assertEquals("Пользователя c идентификатором " + user.getId() +
-                " не существует.", exception.getMessage());
+        assertEquals("Пользователя c идентификатором " + user.getId() + " не существует.", exception.getMessage());
     }
 
     @Test
     public void itemUpdateWithNotFoundItem() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> itemService.update(itemDto, item.getId(), user.getId()));
 
@@ -130,7 +242,6 @@ public class ItemServiceTest {
 
     @Test
     public void itemUpdateWithWrongUser() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
 
         NotFoundException exception = assertThrows(NotFoundException.class,
@@ -141,9 +252,8 @@ public class ItemServiceTest {
 
     @Test
     public void itemUpdate() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(itemRepository.save(any())).thenReturn(itemUpdate);
+        when(itemRepository.saveAndFlush(any())).thenReturn(itemUpdate);
 
         ItemDto itemGet = itemService.update(itemDto, item.getId(), user.getId());
 
@@ -153,6 +263,9 @@ public class ItemServiceTest {
 
     @Test
     public void getByIdWithNotFoundItem() {
+        when(itemViewService.get(anyLong()))
+                .thenThrow(new NotFoundException("Вещь с id " + item.getId() + " не найдена."));
+
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> itemService.getById(item.getId(), user.getId()));
 
@@ -167,9 +280,17 @@ public class ItemServiceTest {
 
         comment.setAuthor(user);
 
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItemIdAndEndBefore(anyLong(), any())).thenReturn(booking);
-        when(commentRepository.getAllByItemId(anyLong())).thenReturn(List.of(comment));
+        ItemView itemView = new ItemView();
+        itemView.setItemId(item.getId());
+        itemView.setOwnerId(user.getId());
+        itemView.setName(item.getName());
+        itemView.setDescription(item.getDescription());
+        itemView.setAvailable(item.getAvailable());
+        itemView.setLastBookingId(booking.getId());
+        itemView.setLastBookerId(user.getId());
+        itemView.setComments(List.of(CommentMapper.commentDtoOutput(comment)));
+
+        when(itemViewService.get(anyLong())).thenReturn(itemView);
 
         ItemOutputDto itemGet = itemService.getById(itemDto.getId(), user.getId());
 
@@ -177,10 +298,49 @@ public class ItemServiceTest {
         assertEquals(itemGet.getName(), item.getName());
         assertEquals(itemGet.getDescription(), item.getDescription());
         assertEquals(itemGet.getAvailable(), item.getAvailable());
+        assertEquals(itemGet.getLastBooking().getId(), booking.getId());
+        assertEquals(itemGet.getComments().size(), 1);
+
+        ItemOutputDto itemGetByOther = itemService.getById(itemDto.getId(), 2L);
+
+        assertNull(itemGetByOther.getLastBooking());
+    }
+
+    @Test
+    public void getCommentsAfterCursor() {
+        comment.setId(5L);
+        comment.setAuthor(user);
+
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(commentRepository.findAllByItemIdBefore(anyLong(), any(), anyLong(), any()))
+                .thenReturn(List.of(comment));
+
+        List<CommentDtoOutput> comments = itemService.getComments(item.getId(),
+                Cursor.of(LocalDateTime.now(), 6L), 20);
+
+        assertEquals(comments.size(), 1);
+        assertEquals(comments.get(0).getId(), comment.getId());
+    }
+
+    @Test
+    public void addComment() {
+        comment.setAuthor(user);
+
+        when(bookingRepository.existsByItemIdAndBookerIdAndEndBefore(anyLong(), anyLong(), any()))
+                .thenReturn(true);
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(commentRepository.save(any())).thenReturn(comment);
+
+        itemService.addComment(item.getId(), user.getId(), commentDtoInput);
+
+        verify(itemRepository).incrementCommentCount(item.getId());
+        verify(itemViewService).refresh(item.getId());
     }
 
     @Test
     public void getAllWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + user.getId() + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(user.getId());
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> itemService.getAll(user.getId(), 0, 20));
 
@@ -188,6 +348,30 @@ public class ItemServiceTest {
                 exception.getMessage());
     }
 
+    @Test
+    public void getAll() {
+        BookingSlot last = new BookingSlot(1L, item.getId(), user.getId(), LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1), BookingStatus.APPROVED);
+
+        comment.setAuthor(user);
+        comment.setItem(item2);
+
+        when(itemRepository.findAllByOwnerIdOrderById(anyLong(), any())).thenReturn(List.of(item, item2));
+        when(bookingTimelineCache.getAll(any())).thenReturn(Map.of(
+                item.getId(), new ItemBookingTimeline(List.of(last)),
+                item2.getId(), new ItemBookingTimeline(List.of())));
+        when(commentRepository.findRecentByItemIdIn(any(), anyLong())).thenReturn(List.of(comment));
+
+        List<ItemOutputDto> items = itemService.getAll(user.getId(), 0, 20);
+
+        assertEquals(items.size(), 2);
+        assertEquals(items.get(0).getId(), item.getId());
+        assertEquals(items.get(0).getLastBooking().getId(), last.getId());
+        assertEquals(items.get(0).getComments().size(), 0);
+        assertEquals(items.get(1).getId(), item2.getId());
+        assertEquals(items.get(1).getComments().size(), 1);
+    }
+
     @Test
     public void searchWithEmptyText() {
         List<ItemDto> items = itemService.search("", 0, 20);
@@ -197,12 +381,86 @@ public class ItemServiceTest {
 
     @Test
     public void search() {
+        when(itemSearchCache.get(any(), anyInt(), anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<List<ItemDto>>>getArgument(3).get());
         when(itemRepository.search(any(), any())).thenReturn(List.of(item, item2));
         List<ItemDto> items = itemService.search("ite", 0, 20);
 
         assertEquals(items.size(), 2);
     }
 
+    @Test
+    public void searchFullText() {
+        when(itemSearchCache.get(any(), anyInt(), anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<List<ItemDto>>>getArgument(3).get());
+        ReflectionTestUtils.setField(itemService, "searchMode", SearchMode.FULL_TEXT);
+        when(itemRepository.searchFullText(any(), any())).thenReturn(List.of(item2, item));
+        List<ItemDto> items = itemService.search("ite", 0, 20);
+
+        assertEquals(items.size(), 2);
+        assertEquals(items.get(0).getId(), item2.getId());
+    }
+
+    @Test
+    public void searchAvailableWithOccupancyIndex() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        when(itemOccupancyIndex.covers(start, start.plusDays(1))).thenReturn(true);
+        when(itemRepository.search(any(), any())).thenReturn(List.of(item, item2));
+        when(itemOccupancyIndex.findFree(List.of(item.getId(), item2.getId()), start, start.plusDays(1)))
+                .thenReturn(Set.of(item2.getId()));
+
+        List<ItemDto> items = itemService.searchAvailable("ite", start, start.plusDays(1), 0, 20);
+
+        assertEquals(List.of(ItemMapper.toItemDto(item2)), items);
+    }
+
+    @Test
+    public void searchAvailableRechecksIndexCandidatesInDatabase() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        when(itemOccupancyIndex.covers(start, start.plusDays(1))).thenReturn(true);
+        when(itemRepository.search(any(), any())).thenReturn(List.of(item, item2));
+        when(itemOccupancyIndex.findFree(List.of(item.getId(), item2.getId()), start, start.plusDays(1)))
+                .thenReturn(Set.of(item.getId(), item2.getId()));
+        when(itemOccupancyIndex.findBusy(List.of(item.getId()), start, start.plusDays(1)))
+                .thenReturn(Set.of(item.getId()));
+        when(itemOccupancyIndex.findBusy(List.of(item2.getId()), start, start.plusDays(1)))
+                .thenReturn(Set.of());
+
+        List<ItemDto> items = itemService.searchAvailable("ite", start, start.plusDays(1), 0, 1);
+
+        assertEquals(List.of(ItemMapper.toItemDto(item2)), items);
+    }
+
+    @Test
+    public void searchAvailableOutsideHorizon() {
+        LocalDateTime start = LocalDateTime.now().plusYears(1);
+        when(itemOccupancyIndex.covers(start, start.plusDays(1))).thenReturn(false);
+        when(itemRepository.searchAvailable(any(), any(), any(), any())).thenReturn(List.of(item));
+
+        List<ItemDto> items = itemService.searchAvailable("ite", start, start.plusDays(1), 0, 20);
+
+        assertEquals(1, items.size());
+    }
+
+    @Test
+    public void searchAvailableWithWrongPeriod() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        assertThrows(ValidationException.class,
+                () -> itemService.searchAvailable("ite", start, start.minusHours(1), 0, 20));
+    }
+
+    @Test
+    public void searchWithIndex() {
+        when(itemSearchCache.get(any(), anyInt(), anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<List<ItemDto>>>getArgument(3).get());
+        ReflectionTestUtils.setField(itemService, "searchMode", SearchMode.INDEX);
+        when(itemSearchIndex.search("ite", 0, 20)).thenReturn(List.of(itemDto));
+        List<ItemDto> items = itemService.search("ite", 0, 20);
+
+        assertEquals(items.size(), 1);
+    }
+
     @Test
     public void addCommentWithWrongBooking() {
         ValidationException exception = assertThrows(ValidationException.class,
@@ -0,0 +1,62 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSuggestIndex;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSuggestIndexTest {
+    @Mock
+    private ItemRepository itemRepository;
+
+    private ItemSuggestIndex itemSuggestIndex;
+
+    private final User user = new User(1L, "user", "user@ya.ru");
+
+    @BeforeEach
+    void setUp() {
+        itemSuggestIndex = new ItemSuggestIndex(itemRepository);
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(
+                new Item(1L, "Дрель ударная", "Мощная", true, user, null),
+                new Item(2L, "Дрель", "Простая", true, user, null),
+                new Item(3L, "Друшляг", "Для кухни", true, user, null),
+                new Item(4L, "Дрезина", "Занята", false, user, null),
+                new Item(5L, "дрель", "Ещё одна", true, user, null))));
+        itemSuggestIndex.rebuild();
+    }
+
+    @Test
+    void suggestReturnsSortedCompletions() {
+        assertEquals(List.of("Дрель", "дрель", "Дрель ударная", "Друшляг"), itemSuggestIndex.suggest("ДР", 10));
+        assertEquals(List.of("Дрель", "дрель"), itemSuggestIndex.suggest("др", 2));
+        assertTrue(itemSuggestIndex.suggest("дрез", 10).isEmpty());
+        assertTrue(itemSuggestIndex.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void indexFollowsRenameAndAvailability() {
+        itemSuggestIndex.index(new ItemDto(2L, "Перфоратор", "Простая", true, 0));
+        itemSuggestIndex.index(new ItemDto(3L, "Друшляг", "Для кухни", false, 0));
+        itemSuggestIndex.index(new ItemDto(4L, "Дрезина", "Свободна", true, 0));
+
+        assertEquals(List.of("Дрезина", "дрель", "Дрель ударная"), itemSuggestIndex.suggest("дре", 10));
+        assertEquals(List.of("Перфоратор"), itemSuggestIndex.suggest("пер", 10));
+        assertTrue(itemSuggestIndex.suggest("дру", 10).isEmpty());
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.timeline.BookingSlot;
+import ru.practicum.shareit.booking.timeline.BookingTimelineCache;
+import ru.practicum.shareit.booking.timeline.ItemBookingTimeline;
+import ru.practicum.shareit.item.comment.CommentDtoOutput;
+import ru.practicum.shareit.item.comment.CommentRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.view.CommentListConverter;
+import ru.practicum.shareit.item.view.ItemView;
+import ru.practicum.shareit.item.view.ItemViewRepository;
+import ru.practicum.shareit.item.view.ItemViewServiceImpl;
+import ru.practicum.shareit.retry.OptimisticRetry;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemViewServiceTest {
+    @InjectMocks
+    private ItemViewServiceImpl itemViewService;
+    @Mock
+    private ItemViewRepository itemViewRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private BookingTimelineCache bookingTimelineCache;
+    @Mock
+    private CommentRepository commentRepository;
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), 2, Duration.ZERO);
+
+    private final User owner = new User(1L, "owner", "owner@ya.ru");
+
+    private final User booker = new User(2L, "booker", "booker@ya.ru");
+
+    private final Item item = new Item(1L, "item", "desc", true, owner, null);
+
+    @Test
+    public void getValidViewWithoutRebuild() {
+        ItemView itemView = new ItemView();
+        itemView.setItemId(item.getId());
+        itemView.setValidUntil(LocalDateTime.now().plusDays(1));
+        when(itemViewRepository.findById(anyLong())).thenReturn(Optional.of(itemView));
+
+        assertSame(itemView, itemViewService.get(item.getId()));
+        verify(itemRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void getExpiredViewRebuildsIt() {
+        ItemView itemView = new ItemView();
+        itemView.setItemId(item.getId());
+        itemView.setNextBookingId(3L);
+        itemView.setValidUntil(LocalDateTime.now().minusMinutes(1));
+        Booking current = new Booking(LocalDateTime.now().minusHours(1), LocalDateTime.now().plusHours(1),
+                BookingStatus.APPROVED);
+        current.setId(3L);
+        current.setItem(item);
+        current.setBooker(booker);
+        Booking next = new Booking(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                BookingStatus.WAITING);
+        next.setId(4L);
+        next.setItem(item);
+        next.setBooker(booker);
+
+        when(itemViewRepository.findById(anyLong())).thenReturn(Optional.of(itemView));
+        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(item));
+        when(bookingTimelineCache.load(any())).thenReturn(Map.of(item.getId(),
+                new ItemBookingTimeline(List.of(BookingSlot.of(current), BookingSlot.of(next)))));
+        when(commentRepository.findRecentByItemIdIn(any(), anyLong())).thenReturn(List.of());
+
+        ItemView rebuilt = itemViewService.get(item.getId());
+
+        assertEquals(rebuilt.getOwnerId(), owner.getId());
+        assertNull(rebuilt.getLastBookingId());
+        assertEquals(rebuilt.getNextBookingId(), next.getId());
+        assertEquals(rebuilt.getNextBookerId(), booker.getId());
+        assertEquals(rebuilt.getValidUntil(), current.getEnd());
+        verify(itemViewRepository, never()).save(any());
+    }
+
+    @Test
+    public void commentsConverterRoundTrip() {
+        CommentListConverter converter = new CommentListConverter();
+        List<CommentDtoOutput> comments = List.of(new CommentDtoOutput(1L, "text", "author",
+                LocalDateTime.of(2030, 1, 1, 10, 0, 0, 123456000)));
+
+        assertEquals(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(comments)), comments);
+    }
+
+    @Test
+    public void refreshWaitsForCommit() {
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        when(bookingTimelineCache.load(any())).thenReturn(Map.of(item.getId(), new ItemBookingTimeline(List.of())));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemViewService.refresh(item.getId());
+
+            verify(itemViewRepository, never()).saveAllAndFlush(any());
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify(itemViewRepository).saveAllAndFlush(any());
+    }
+
+    @Test
+    public void refreshRetriesOnVersionConflict() {
+        when(itemRepository.findAllById(any())).thenReturn(List.of(item));
+        when(bookingTimelineCache.load(any())).thenReturn(Map.of(item.getId(), new ItemBookingTimeline(List.of())));
+        when(itemViewRepository.saveAllAndFlush(any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(ItemView.class, item.getId()))
+                .thenReturn(List.of());
+
+        itemViewService.refresh(item.getId());
+
+        verify(itemViewRepository, times(2)).findAllById(any());
+        verify(itemViewRepository, times(2)).saveAllAndFlush(any());
+    }
+}
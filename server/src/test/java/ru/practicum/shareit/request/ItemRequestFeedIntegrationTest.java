@@ -0,0 +1,63 @@
+package ru.practicum.shareit.request;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoInput;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+@SpringBootTest(
+        properties = {"db.name=test", "shareit.requests.feed.window-size=2"},
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemRequestFeedIntegrationTest {
+    private final ItemRequestService requestService;
+    private final ItemRequestFeed itemRequestFeed;
+    private final UserService userService;
+    private final ItemService itemService;
+
+    @Test
+    public void feedServesRecentRequestsAndFallsBackToDatabase() {
+        long requestor = userService.add(new UserDto(0L, "requestor", "requestor@ya.ru")).getId();
+        long owner = userService.add(new UserDto(0L, "owner", "owner@ya.ru")).getId();
+        long reader = userService.add(new UserDto(0L, "reader", "reader@ya.ru")).getId();
+        ItemRequestDtoOutput first = requestService.add(request("Нужна палатка"), requestor);
+        ItemRequestDtoOutput second = requestService.add(request("Нужен котелок"), requestor);
+        ItemRequestDtoOutput third = requestService.add(request("Нужна дрель"), requestor);
+        ItemDto drill = itemService.create(new ItemDto(0L, "Дрель", "Ударная", true, third.getId()), owner);
+
+        List<ItemRequestDtoOutput> firstPage = requestService.findAll(0, 2, reader);
+        List<ItemRequestDtoOutput> secondPage = requestService.findAllAfter(
+                Cursor.of(second.getCreated(), second.getId()), 2, reader);
+
+        assertThat(itemRequestFeed.size(), equalTo(2));
+        assertThat(firstPage.get(0).getId(), equalTo(third.getId()));
+        assertThat(firstPage.get(0).getItems(), equalTo(List.of(drill)));
+        assertThat(firstPage.get(1).getId(), equalTo(second.getId()));
+        assertThat(secondPage.size(), equalTo(1));
+        assertThat(secondPage.get(0).getId(), equalTo(first.getId()));
+        assertThat(requestService.findAll(0, 2, requestor), equalTo(List.of()));
+    }
+
+    private ItemRequestDtoInput request(String description) {
+        ItemRequestDtoInput itemRequestDtoInput = new ItemRequestDtoInput();
+        itemRequestDtoInput.setDescription(description);
+        return itemRequestDtoInput;
+    }
+}
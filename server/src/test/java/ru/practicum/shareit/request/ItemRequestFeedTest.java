@@ -0,0 +1,138 @@
+package ru.practicum.shareit.request;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
+import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemRequestFeedTest {
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemRepository itemRepository;
+
+    private final User user = new User(1L, "user", "user@ya.ru");
+    private final User user2 = new User(2L, "user2", "user2@ya.ru");
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 10, 12, 0);
+
+    @Test
+    public void pageExcludesOwnRequestsAndCarriesItems() {
+        ItemRequest request1 = request(1L, user, now.minusHours(2));
+        ItemRequest request2 = request(2L, user2, now.minusHours(1));
+        when(itemRequestRepository.findRecent(PageRequest.of(0, 10))).thenReturn(List.of(request2, request1));
+        when(itemRepository.findAllByRequestIdIn(Set.of(1L, 2L)))
+                .thenReturn(List.of(new Item(7L, "item", "desc", true, user2, request1)));
+        ItemRequestFeed feed = feed(10);
+
+        List<ItemRequestDtoOutput> page = feed.page(user2.getId(), 0, 20).orElseThrow();
+
+        assertEquals(ids(page), List.of(1L));
+        assertEquals(page.get(0).getItems(), List.of(new ItemDto(7L, "item", "desc", true, 1L)));
+    }
+
+    @Test
+    public void addedRequestsAndItemsAreVisible() {
+        when(itemRequestRepository.findRecent(PageRequest.of(0, 10))).thenReturn(List.of());
+        ItemRequestFeed feed = feed(10);
+
+        feed.add(request(1L, user, now.minusHours(1)));
+        feed.add(request(2L, user, now));
+        feed.putItem(new ItemDto(7L, "item", "desc", true, 1L));
+        feed.putItem(new ItemDto(7L, "update", "desc", false, 1L));
+        List<ItemRequestDtoOutput> page = feed.page(user2.getId(), 0, 20).orElseThrow();
+
+        assertEquals(ids(page), List.of(2L, 1L));
+        assertEquals(page.get(1).getItems(), List.of(new ItemDto(7L, "update", "desc", false, 1L)));
+    }
+
+    @Test
+    public void pageBeyondWindowFallsBackToDatabase() {
+        when(itemRequestRepository.findRecent(PageRequest.of(0, 2))).thenReturn(List.of(
+                request(3L, user, now), request(2L, user, now.minusHours(1))));
+        ItemRequestFeed feed = feed(2);
+
+        assertEquals(ids(feed.page(user2.getId(), 0, 2).orElseThrow()), List.of(3L, 2L));
+        assertEquals(feed.page(user2.getId(), 2, 2), Optional.empty());
+        assertEquals(feed.page(user.getId(), 0, 2), Optional.empty());
+    }
+
+    @Test
+    public void requestFromAnotherInstanceFallsBackToDatabase() {
+        when(itemRequestRepository.findRecent(PageRequest.of(0, 10))).thenReturn(List.of(request(1L, user, now)));
+        ItemRequestFeed feed = feed(10);
+        when(itemRequestRepository.findRecentIds(PageRequest.of(0, 1))).thenReturn(List.of(2L));
+
+        assertEquals(feed.page(user2.getId(), 0, 20), Optional.empty());
+
+        when(itemRequestRepository.findRecent(PageRequest.of(0, 10))).thenReturn(List.of(
+                request(2L, user, now.plusMinutes(1)), request(1L, user, now)));
+        feed.rebuild();
+
+        assertEquals(ids(feed.page(user2.getId(), 0, 20).orElseThrow()), List.of(2L, 1L));
+    }
+
+    @Test
+    public void pageAfterCursor() {
+        when(itemRequestRepository.findRecent(PageRequest.of(0, 10))).thenReturn(List.of(
+                request(3L, user, now), request(2L, user, now), request(1L, user, now.minusHours(1))));
+        ItemRequestFeed feed = feed(10);
+
+        List<ItemRequestDtoOutput> page = feed.pageAfter(user2.getId(), Cursor.of(now, 3L), 5).orElseThrow();
+
+        assertEquals(ids(page), List.of(2L, 1L));
+    }
+
+    @Test
+    public void oldRequestsAreTrimmedFromWindow() {
+        when(itemRequestRepository.findRecent(PageRequest.of(0, 2))).thenReturn(List.of(
+                request(2L, user, now.minusHours(1)), request(1L, user, now.minusHours(2))));
+        ItemRequestFeed feed = feed(2);
+
+        feed.add(request(3L, user, now));
+
+        assertEquals(feed.size(), 2);
+        assertEquals(ids(feed.page(user2.getId(), 0, 2).orElseThrow()), List.of(3L, 2L));
+        assertTrue(feed.page(user2.getId(), 0, 3).isEmpty());
+    }
+
+    private ItemRequestFeed feed(int windowSize) {
+        ItemRequestFeed feed = new ItemRequestFeed(itemRequestRepository, itemRepository, windowSize,
+                new SimpleMeterRegistry());
+        feed.rebuild();
+        return feed;
+    }
+
+    private ItemRequest request(long id, User requestor, LocalDateTime created) {
+        ItemRequest itemRequest = new ItemRequest("request" + id);
+        itemRequest.setId(id);
+        itemRequest.setRequestor(requestor);
+        itemRequest.setCreated(created);
+        return itemRequest;
+    }
+
+    private List<Long> ids(List<ItemRequestDtoOutput> requests) {
+        return requests.stream().map(ItemRequestDtoOutput::getId).collect(Collectors.toList());
+    }
+}
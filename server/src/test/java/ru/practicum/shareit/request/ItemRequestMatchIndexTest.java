@@ -0,0 +1,86 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.request.matching.ItemRequestMatchIndex;
+import ru.practicum.shareit.request.matching.RequestMatch;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemRequestMatchIndexTest {
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+
+    private ItemRequestMatchIndex index;
+
+    private final User user = new User(1L, "user", "user@ya.ru");
+    private final User user2 = new User(2L, "user2", "user2@ya.ru");
+
+    @BeforeEach
+    void setUp() {
+        index = new ItemRequestMatchIndex(itemRequestRepository);
+    }
+
+    @Test
+    public void rebuildIndexesOpenRequests() {
+        when(itemRequestRepository.findAllOpen(any(Pageable.class))).thenReturn(List.of(
+                request(1L, "Нужна дрель", user),
+                request(2L, "Ищу палатку на выходные", user)));
+
+        index.rebuild();
+        List<RequestMatch> matches = index.match("Дрель ударная", 2L, 10);
+
+        assertEquals(index.size(), 2);
+        assertEquals(matches.size(), 1);
+        assertEquals(matches.get(0), new RequestMatch(1L, 1));
+    }
+
+    @Test
+    public void matchRanksBySharedWordsThenNewest() {
+        index.add(request(1L, "Нужна дрель", user));
+        index.add(request(2L, "Дрель ударная, на выходные", user));
+        index.add(request(3L, "Дрель", user));
+
+        List<RequestMatch> matches = index.match("Ударная ДРЕЛЬ", 2L, 2);
+
+        assertEquals(matches, List.of(new RequestMatch(2L, 2), new RequestMatch(3L, 1)));
+    }
+
+    @Test
+    public void matchSkipsOwnRequestsAndShortWords() {
+        index.add(request(1L, "Дрель на час", user));
+
+        assertTrue(index.match("дрель", 1L, 10).isEmpty());
+        assertTrue(index.match("на", 2L, 10).isEmpty());
+    }
+
+    @Test
+    public void closedRequestIsNotMatched() {
+        index.add(request(1L, "Нужна дрель", user2));
+
+        index.close(1L);
+
+        assertTrue(index.match("дрель", 1L, 10).isEmpty());
+        assertEquals(index.size(), 0);
+    }
+
+    private ItemRequest request(long id, String description, User requestor) {
+        ItemRequest itemRequest = new ItemRequest(description);
+        itemRequest.setId(id);
+        itemRequest.setRequestor(requestor);
+        return itemRequest;
+    }
+}
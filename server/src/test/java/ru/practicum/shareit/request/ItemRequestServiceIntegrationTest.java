@@ -6,8 +6,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.transaction.TestTransaction;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDtoInput;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -93,13 +95,19 @@ public class ItemRequestServiceIntegrationTest {
         requestService.add(itemRequestDtoInput2, user.getId());
         itemService.create(itemDto2, user.getId());
 
-        List<ItemRequestDtoOutput> requests = requestService.findAllOwner(user.getId());
+        List<ItemRequestDtoOutput> requests = requestService.findAllOwner(0, 20, user.getId());
 
         assertThat(requests.size(), equalTo(2));
         assertThat(requests.get(0).getDescription(), equalTo(itemRequestDtoInput2.getDescription()));
         assertTrue(requests.get(0).getItems().contains(itemDto2));
         assertThat(requests.get(1).getDescription(), equalTo(itemRequestDtoInput.getDescription()));
         assertTrue(requests.get(1).getItems().contains(itemDto));
+        em.clear();
+        List<ItemRequestDtoOutput> firstPage = requestService.findAllOwner(0, 1, user.getId());
+        List<ItemRequestDtoOutput> secondPage = requestService.findAllOwnerAfter(
+                Cursor.of(firstPage.get(0).getCreated(), firstPage.get(0).getId()), 1, user.getId());
+        assertThat(firstPage.get(0).getId(), equalTo(requests.get(0).getId()));
+        assertThat(secondPage.get(0).getId(), equalTo(requests.get(1).getId()));
     }
 
     @Test
@@ -132,4 +140,24 @@ public class ItemRequestServiceIntegrationTest {
         assertThat(itemRequestDtoOutput.getDescription(), equalTo(
                 itemRequestDtoInput.getDescription()));
     }
+
+    @Test
+    public void newItemIsMatchedWithOpenRequests() {
+        userService.add(UserMapper.toUserDto(user2));
+        itemRequestDtoInput.setDescription("Нужна ударная дрель на выходные");
+        itemRequestDtoInput2.setDescription("Ищу палатку");
+        ItemRequestDtoOutput drillRequest = requestService.add(itemRequestDtoInput, user.getId());
+        requestService.add(itemRequestDtoInput2, user.getId());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+
+        ItemDto drill = itemService.create(new ItemDto(0L, "Дрель", "Ударная, почти новая", true, 0L),
+                user2.getId());
+
+        List<ItemRequestDtoOutput> requests = itemService.getRequestMatches(drill.getId(), user2.getId());
+        assertThat(requests.size(), equalTo(1));
+        assertThat(requests.get(0).getId(), equalTo(drillRequest.getId()));
+        assertThat(requestService.findItemMatches(drillRequest.getId(), user.getId()), equalTo(List.of(drill)));
+    }
 }
@@ -5,16 +5,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.Cursor;
 import ru.practicum.shareit.request.dto.ItemRequestDtoInput;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.matching.ItemRequestMatchIndex;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestMatchRepository;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,7 +30,12 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,7 +47,15 @@ public class ItemRequestServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserExistenceCache userExistenceCache;
+    @Mock
     private ItemRepository itemRepository;
+    @Mock
+    private ItemRequestMatchRepository itemRequestMatchRepository;
+    @Mock
+    private ItemRequestMatchIndex itemRequestMatchIndex;
+    @Mock
+    private ItemRequestFeed itemRequestFeed;
 
     User user = new User(1L, "user", "descr");
     ItemRequestDtoInput itemRequestDtoInput = new ItemRequestDtoInput();
@@ -43,58 +64,98 @@ public class ItemRequestServiceTest {
 
     @Test
     public void addRequestWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + user.getId() + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(user.getId());
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
                 requestService.add(itemRequestDtoInput, user.getId()));
 
         assertEquals(notFoundException.getMessage(),
-                "Пользователь c идентификатором " + user.getId() + " не найден.");
+                "Пользователя c идентификатором " + user.getId() + " не существует.");
     }
 
     @Test
     public void addRequest() {
         itemRequestDtoInput.setDescription("description");
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
 
         ItemRequestDtoOutput itemRequest = requestService.add(
                 itemRequestDtoInput, user.getId());
 
         assertEquals(itemRequest.getDescription(),
                 itemRequestDtoInput.getDescription());
+        verify(itemRequestMatchIndex).add(any());
     }
 
     @Test
     public void findAllOwnerWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + user.getId() + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(user.getId());
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
-                requestService.findAllOwner(user.getId()));
+                requestService.findAllOwner(0, 20, user.getId()));
 
-        assertEquals(notFoundException.getMessage(), "пользователь не найден");
+        assertEquals(notFoundException.getMessage(), "Пользователя c идентификатором " + user.getId() + " не существует.");
     }
 
     @Test
     public void findAllOwner() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(requestRepository.findAllByRequestorIdOrderByCreatedDesc(anyLong()))
+        itemRequest.setId(1L);
+        itemRequest2.setId(2L);
+        Item item = new Item(1L, "item", "desc", true, user, itemRequest2);
+        when(requestRepository.findAllByRequestorId(user.getId(), PageRequest.of(0, 20)))
                 .thenReturn(List.of(itemRequest, itemRequest2));
+        when(itemRepository.findAllByRequestIdIn(List.of(1L, 2L))).thenReturn(List.of(item));
 
-        List<ItemRequestDtoOutput> itemRequests = requestService.findAllOwner(user.getId());
+        List<ItemRequestDtoOutput> itemRequests = requestService.findAllOwner(0, 20, user.getId());
 
         assertEquals(itemRequests.size(), 2);
         assertEquals(itemRequests.get(0).getId(), itemRequest.getId());
         assertEquals(itemRequests.get(0).getDescription(), itemRequest.getDescription());
+        assertEquals(itemRequests.get(0).getItems(), List.of());
+        assertEquals(itemRequests.get(1).getItems(), List.of(ItemMapper.toItemDto(item)));
+        verify(itemRepository, times(1)).findAllByRequestIdIn(any());
+    }
+
+    @Test
+    public void findAllOwnerAfterCursor() {
+        LocalDateTime created = LocalDateTime.now();
+        when(requestRepository.findAllByRequestorIdBefore(user.getId(), created, 5L, PageRequest.of(0, 10)))
+                .thenReturn(List.of());
+
+        assertEquals(List.of(), requestService.findAllOwnerAfter(Cursor.of(created, 5L), 10, user.getId()));
+        verify(itemRepository, never()).findAllByRequestIdIn(any());
     }
 
     @Test
     public void findAllWithNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + user.getId() + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(user.getId());
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
                 requestService.findAll(0, 20, user.getId()));
 
-        assertEquals(notFoundException.getMessage(), "пользователь не найден");
+        assertEquals(notFoundException.getMessage(), "Пользователя c идентификатором " + user.getId() + " не существует.");
     }
 
     @Test
-    public void findByIdNotFoundRequest() {
-        when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
+    public void findAllFromFeed() {
+        ItemRequestDtoOutput request = new ItemRequestDtoOutput(2L, "request2", LocalDateTime.now());
+        when(itemRequestFeed.page(user.getId(), 0, 20)).thenReturn(Optional.of(List.of(request)));
+
+        assertEquals(List.of(request), requestService.findAll(0, 20, user.getId()));
+        verify(requestRepository, never()).findAllByRequestorIdNotOrderByCreatedDesc(anyLong(), any());
+    }
+
+    @Test
+    public void findAllBeyondFeedWindow() {
+        itemRequest.setId(1L);
+        when(itemRequestFeed.page(user.getId(), 20, 20)).thenReturn(Optional.empty());
+        when(requestRepository.findAllByRequestorIdNotOrderByCreatedDesc(user.getId(), PageRequest.of(1, 20)))
+                .thenReturn(List.of(itemRequest));
+        when(itemRepository.findAllByRequestIdIn(List.of(1L))).thenReturn(List.of());
+
+        assertEquals(1, requestService.findAll(20, 20, user.getId()).size());
+    }
 
+    @Test
+    public void findByIdNotFoundRequest() {
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
                 requestService.findById(1L, 1L));
 
@@ -103,10 +164,36 @@ public class ItemRequestServiceTest {
 
     @Test
     public void findByIdNotFoundUser() {
+        doThrow(new NotFoundException("Пользователя c идентификатором " + 1L + " не существует."))
+                .when(userExistenceCache).throwIfNotFound(1L);
         NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
                 requestService.findById(1L, 1L));
 
-        assertEquals(notFoundException.getMessage(), "пользователь не найден");
+        assertEquals(notFoundException.getMessage(), "Пользователя c идентификатором " + 1L + " не существует.");
+    }
+
+    @Test
+    public void findItemMatches() {
+        itemRequest.setId(1L);
+        itemRequest.setRequestor(user);
+        Item item = new Item(2L, "Дрель", "Ударная", true, new User(2L, "owner", "owner@ya.ru"), null);
+        when(requestRepository.findById(1L)).thenReturn(Optional.of(itemRequest));
+        when(itemRequestMatchRepository.findAvailableItemsByRequestId(1L)).thenReturn(List.of(item));
+
+        assertEquals(List.of(ItemMapper.toItemDto(item)), requestService.findItemMatches(1L, user.getId()));
+    }
+
+    @Test
+    public void findItemMatchesByNotRequestor() {
+        itemRequest.setId(1L);
+        itemRequest.setRequestor(new User(2L, "user2", "user2@ya.ru"));
+        when(requestRepository.findById(1L)).thenReturn(Optional.of(itemRequest));
+
+        NotFoundException notFoundException = assertThrows(NotFoundException.class, () ->
+                requestService.findItemMatches(1L, user.getId()));
+
+        assertEquals(notFoundException.getMessage(), "Подходящие вещи для запроса может смотреть только его автор.");
+        verify(itemRequestMatchRepository, never()).findAvailableItemsByRequestId(anyLong());
     }
 
     @Test
@@ -8,6 +8,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.request.controller.ItemRequestController;
 import ru.practicum.shareit.request.dto.ItemRequestDtoOutput;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
@@ -67,7 +68,7 @@ public class ItemRequestsControllerTest {
 
     @Test
     public void findAllOwnerRequests() throws Exception {
-        when(itemRequestService.findAllOwner(anyLong())).thenReturn(List.of(
+        when(itemRequestService.findAllOwner(anyInt(), anyInt(), anyLong())).thenReturn(List.of(
                 new ItemRequestDtoOutput(1, "des1", LocalDateTime.of(
                         2022, 11, 18, 12, 0, 0)),
                 new ItemRequestDtoOutput(2, "des2", LocalDateTime.of(
@@ -84,7 +85,7 @@ public class ItemRequestsControllerTest {
 
     @Test
     public void findAllOwnerRequestsWhenUserNotFound() throws Exception {
-        when(itemRequestService.findAllOwner(anyLong())).thenThrow(new NotFoundException(""));
+        when(itemRequestService.findAllOwner(anyInt(), anyInt(), anyLong())).thenThrow(new NotFoundException(""));
 
         mvc.perform(get("/requests")
                         .header("X-Sharer-User-Id", 1L))
@@ -136,4 +137,16 @@ public class ItemRequestsControllerTest {
                         .header("X-Sharer-User-Id", 1L))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void findItemMatches() throws Exception {
+        when(itemRequestService.findItemMatches(1L, 1L))
+                .thenReturn(List.of(new ItemDto(2L, "Дрель", "Ударная", true, 0)));
+
+        mvc.perform(get("/requests/1/item-matches")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id", is(2L), Long.class));
+    }
 }
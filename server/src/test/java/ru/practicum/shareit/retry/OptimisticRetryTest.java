@@ -0,0 +1,56 @@
+package ru.practicum.shareit.retry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class OptimisticRetryTest {
+    private final OptimisticRetry optimisticRetry = new OptimisticRetry(
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), 3, Duration.ofMillis(1));
+
+    @Test
+    public void retriesUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticRetry.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Booking.class, 1L);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void rethrowsWhenAttemptsRunOut() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> optimisticRetry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Booking.class, 1L);
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void otherErrorsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> optimisticRetry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.transaction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AfterCommitTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void runsImmediatelyWithoutTransaction() {
+        List<String> calls = new ArrayList<>();
+
+        AfterCommit.run(() -> calls.add("change"));
+
+        assertEquals(List.of("change"), calls);
+    }
+
+    @Test
+    public void nestedChangeRunsInsideAfterCommit() {
+        List<String> calls = new ArrayList<>();
+        TransactionSynchronizationManager.initSynchronization();
+
+        AfterCommit.run(() -> {
+            calls.add("outer");
+            AfterCommit.run(() -> calls.add("nested"));
+        });
+
+        assertTrue(calls.isEmpty());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertEquals(List.of("outer", "nested"), calls);
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+    }
+}
@@ -0,0 +1,116 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserExistenceCacheTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private UserExistenceCache userExistenceCache;
+
+    @BeforeEach
+    void setUp() {
+        userExistenceCache = new UserExistenceCache(userRepository, 2, Duration.ofMinutes(1), Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void knownUserIsCheckedOnce() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertTrue(userExistenceCache.exists(1L));
+        assertTrue(userExistenceCache.exists(1L));
+
+        verify(userRepository, times(1)).existsById(1L);
+    }
+
+    @Test
+    public void missingUserIsRejected() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> userExistenceCache.throwIfNotFound(1L));
+
+        assertEquals("Пользователя c идентификатором " + 1L + " не существует.", exception.getMessage());
+    }
+
+    @Test
+    public void missingUserIsRememberedUntilAdded() {
+        when(userRepository.existsById(1L)).thenReturn(false, true);
+
+        assertFalse(userExistenceCache.exists(1L));
+        assertFalse(userExistenceCache.exists(1L));
+        userExistenceCache.added(1L);
+
+        assertTrue(userExistenceCache.exists(1L));
+        verify(userRepository, times(2)).existsById(1L);
+    }
+
+    @Test
+    public void missingUserExpires() {
+        userExistenceCache = new UserExistenceCache(userRepository, 2, Duration.ofMinutes(1), Duration.ZERO,
+                new SimpleMeterRegistry());
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertFalse(userExistenceCache.exists(1L));
+        assertFalse(userExistenceCache.exists(1L));
+
+        verify(userRepository, times(2)).existsById(1L);
+    }
+
+    @Test
+    public void knownUserExpires() {
+        userExistenceCache = new UserExistenceCache(userRepository, 2, Duration.ZERO, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+        when(userRepository.existsById(1L)).thenReturn(true, false);
+
+        assertTrue(userExistenceCache.exists(1L));
+        assertFalse(userExistenceCache.exists(1L));
+
+        verify(userRepository, times(2)).existsById(1L);
+    }
+
+    @Test
+    public void deletedUserIsCheckedAgain() {
+        when(userRepository.existsById(1L)).thenReturn(true, false);
+
+        assertTrue(userExistenceCache.exists(1L));
+        userExistenceCache.deleted(1L);
+
+        assertFalse(userExistenceCache.exists(1L));
+    }
+
+    @Test
+    public void cacheIsBoundedBySize() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(userRepository.existsById(3L)).thenReturn(true);
+
+        userExistenceCache.exists(1L);
+        userExistenceCache.exists(2L);
+        userExistenceCache.exists(3L);
+        userExistenceCache.exists(1L);
+
+        assertEquals(userExistenceCache.size(), 2);
+        verify(userRepository, times(2)).existsById(1L);
+    }
+}
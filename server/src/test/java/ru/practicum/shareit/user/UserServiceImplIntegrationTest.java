@@ -4,9 +4,12 @@ import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.persistence.EntityManager;
@@ -16,6 +19,9 @@ import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 
 @Transactional
@@ -28,6 +34,8 @@ public class UserServiceImplIntegrationTest {
 
     private final EntityManager em;
     private final UserService userService;
+    @SpyBean
+    private UserRepository userRepository;
 
     private final UserDto userDto = new UserDto(1L, "name", "email@ya.ru");
 
@@ -43,6 +51,28 @@ public class UserServiceImplIntegrationTest {
         assertThat(user.getEmail(), equalTo(userDto.getEmail()));
     }
 
+    @Test
+    public void emailIsUniqueIgnoringCase() {
+        UserDto createdUser = userService.add(userDto);
+        UserDto other = userService.add(new UserDto(0L, "other", "other@ya.ru"));
+
+        assertThrows(AlreadyExistsException.class,
+                () -> userService.add(new UserDto(0L, "name", "EMAIL@ya.ru")));
+        assertThrows(AlreadyExistsException.class,
+                () -> userService.update(new UserDto(0L, null, "Email@Ya.ru"), other.getId()));
+        assertThat(userService.update(new UserDto(0L, null, "EMAIL@ya.ru"), createdUser.getId()).getEmail(),
+                equalTo("EMAIL@ya.ru"));
+    }
+
+    @Test
+    public void concurrentEmailIsRejectedByDatabase() {
+        userService.add(userDto);
+        doReturn(false).when(userRepository).existsByEmailIgnoreCase(any());
+
+        assertThrows(AlreadyExistsException.class,
+                () -> userService.add(new UserDto(0L, "name", userDto.getEmail())));
+    }
+
     @Test
     public void getUserById() {
 
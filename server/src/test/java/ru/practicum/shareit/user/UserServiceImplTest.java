@@ -1,18 +1,20 @@
 package ru.practicum.shareit.user;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.shareit.exception.AlreadyExistsException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserExistenceCache;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +22,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +32,8 @@ class UserServiceImplTest {
     private UserServiceImpl userService;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserExistenceCache userExistenceCache;
 
     User user = new User(1L, "UserName", "user@mail.ru");
     User user2 = new User(2L, "UserName2", "user2@mail.ru");
@@ -39,6 +45,38 @@ class UserServiceImplTest {
         UserDto result = userService.add(userDto);
 
         assertEquals(result, userDto);
+        verify(userExistenceCache).added(user.getId());
+    }
+
+    @Test
+    void addUserWithEmailAlreadyExist() {
+        when(userRepository.existsByEmailIgnoreCase(userDto.getEmail())).thenReturn(true);
+
+        AlreadyExistsException exception = assertThrows(AlreadyExistsException.class,
+                () -> userService.add(userDto));
+        assertEquals("Пользователь с почтой " + userDto.getEmail() + " уже добавлен.", exception.getMessage());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void addUserWithConcurrentEmailViolation() {
+        when(userRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", null, "uq_users_email_lower")));
+
+        AlreadyExistsException exception = assertThrows(AlreadyExistsException.class,
+                () -> userService.add(userDto));
+        assertEquals("Пользователь с почтой " + userDto.getEmail() + " уже добавлен.", exception.getMessage());
+        verify(userExistenceCache, never()).added(anyLong());
+    }
+
+    @Test
+    void addUserWithOtherConstraintViolation() {
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", null, "users_pkey"));
+        when(userRepository.save(any())).thenThrow(violation);
+
+        assertEquals(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> userService.add(userDto)));
     }
 
     @Test
@@ -63,7 +101,7 @@ class UserServiceImplTest {
     public void updateUserWithEmailAlreadyExist() {
         when(userRepository.findById(anyLong()))
                 .thenReturn(Optional.of(user));
-        when(userRepository.findAll()).thenReturn(List.of(user));
+        when(userRepository.existsByEmailIgnoreCaseAndIdNot(userDto.getEmail(), 2L)).thenReturn(true);
 
         AlreadyExistsException exception = assertThrows(AlreadyExistsException.class,
                 () -> userService.update(userDto, 2L));
@@ -74,7 +112,7 @@ class UserServiceImplTest {
     public void updateUser() {
         when(userRepository.findById(anyLong()))
                 .thenReturn(Optional.of(user));
-        when(userRepository.findAll()).thenReturn(new ArrayList<>());
+        when(userRepository.existsByEmailIgnoreCaseAndIdNot(userDto.getEmail(), userDto.getId())).thenReturn(false);
         when(userRepository.save(any())).thenReturn(user);
 
         UserDto userUpdate = userService.update(userDto, userDto.getId());